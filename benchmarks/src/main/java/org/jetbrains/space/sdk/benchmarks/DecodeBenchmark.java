@@ -0,0 +1,50 @@
+package org.jetbrains.space.sdk.benchmarks;
+
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.space.sdk.api.SpaceService;
+import org.jetbrains.space.sdk.datatype.AbsenceRecord;
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+import org.jetbrains.space.sdk.datatype.TD_MemberProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of realistic batch pages with {@link SpaceService#GSON}, from the bytes as received.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+
+    private static final Type PROFILES = new TypeToken<BatchResponse<TD_MemberProfile>>() {}.getType();
+    private static final Type ABSENCES = new TypeToken<BatchResponse<AbsenceRecord>>() {}.getType();
+
+    private byte[] profilesPage;
+    private byte[] absencesPage;
+
+    @Setup
+    public void setUp() {
+        profilesPage = Fixtures.load(Fixtures.PROFILES_PAGE);
+        absencesPage = Fixtures.load(Fixtures.ABSENCES_PAGE);
+    }
+
+    @Benchmark
+    public BatchResponse<TD_MemberProfile> profilesPage() {
+        return SpaceService.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(profilesPage),
+                StandardCharsets.UTF_8), PROFILES);
+    }
+
+    @Benchmark
+    public BatchResponse<AbsenceRecord> absencesPage() {
+        return SpaceService.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(absencesPage),
+                StandardCharsets.UTF_8), ABSENCES);
+    }
+}
@@ -0,0 +1,89 @@
+package org.jetbrains.space.sdk.benchmarks;
+
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+import org.jetbrains.space.sdk.datatype.DatatypeStructureDiscovery;
+import org.jetbrains.space.sdk.datatype.TD_MemberProfile;
+import org.jetbrains.space.sdk.fields.CompiledFieldSpecs;
+import org.jetbrains.space.sdk.fields.DatatypeStructure;
+import org.jetbrains.space.sdk.fields.FieldPath;
+import org.jetbrains.space.sdk.fields.FieldSpecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building, rendering and querying the "$fields" specifications, as done for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldSpecsBenchmark {
+
+    private DatatypeStructure structure;
+    private FieldSpecs specs;
+    private CompiledFieldSpecs compiled;
+    private FieldPath nestedPath;
+    private FieldPath wildcardPath;
+
+    @Setup
+    public void setUp() {
+        structure = BatchResponse.structure(DatatypeStructureDiscovery.structure(TD_MemberProfile.class));
+        specs = newSpecs();
+        compiled = specs.compile();
+        nestedPath = compiled.path("data", "memberships", "team", "name");
+        wildcardPath = compiled.path("data", "locations", "location", "id");
+    }
+
+    /**
+     * The fields of a typical profile batch request.
+     */
+    private FieldSpecs newSpecs() {
+        var res = new FieldSpecs(true, new HashMap<>(), structure);
+        res.addField("data", "name");
+        res.addField("data", "emails");
+        res.addField("data", "memberships", "team", "name");
+        res.addField("data", "memberships", "role");
+        res.addField("data", "locations", "location", "parent", "name");
+        res.addRecursiveField("data", "managers");
+        return res;
+    }
+
+    @Benchmark
+    public FieldSpecs addField() {
+        return newSpecs();
+    }
+
+    @Benchmark
+    public String render() {
+        return specs.toString();
+    }
+
+    @Benchmark
+    public CompiledFieldSpecs compile() {
+        return specs.compile();
+    }
+
+    @Benchmark
+    public boolean fieldWillBeSerializedNested() {
+        return specs.fieldWillBeSerialized("data", "memberships", "team", "name");
+    }
+
+    @Benchmark
+    public boolean fieldWillBeSerializedWildcard() {
+        return specs.fieldWillBeSerialized("data", "locations", "location", "id");
+    }
+
+    @Benchmark
+    public boolean fieldWillBeSerializedNestedPath() {
+        return compiled.fieldWillBeSerialized(nestedPath);
+    }
+
+    @Benchmark
+    public boolean fieldWillBeSerializedWildcardPath() {
+        return compiled.fieldWillBeSerialized(wildcardPath);
+    }
+}
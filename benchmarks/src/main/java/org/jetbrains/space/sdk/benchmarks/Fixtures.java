@@ -0,0 +1,36 @@
+package org.jetbrains.space.sdk.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads the checked-in response fixtures. They are fixed, so that the results of different runs are comparable.
+ */
+class Fixtures {
+
+    /**
+     * A page of 100 member profiles with locations, memberships, emails and custom fields of different types.
+     */
+    static final String PROFILES_PAGE = "/fixtures/profiles-page.json";
+    /**
+     * A page of 100 absences with the members, the locations and the reasons.
+     */
+    static final String ABSENCES_PAGE = "/fixtures/absences-page.json";
+
+    private Fixtures() {
+    }
+
+    static byte @NotNull [] load(@NotNull String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("no fixture " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
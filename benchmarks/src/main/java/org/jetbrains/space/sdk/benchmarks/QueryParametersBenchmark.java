@@ -0,0 +1,68 @@
+package org.jetbrains.space.sdk.benchmarks;
+
+import org.jetbrains.space.sdk.api.SpaceQueryParameters;
+import org.jetbrains.space.sdk.datatype.AbsenceRecord;
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+import org.jetbrains.space.sdk.datatype.DatatypeStructureDiscovery;
+import org.jetbrains.space.sdk.fields.FieldSpecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the query parameters of a chunk of a multi-value request into the URL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryParametersBenchmark {
+
+    private Map<String, Object> parameters;
+    /**
+     * The same parameters with the "$fields" compiled, as sent by the requests.
+     */
+    private Map<String, Object> compiledParameters;
+
+    @Setup
+    public void setUp() {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add("id:2o8CHv1pZx" + (char) ('a' + i));
+        }
+        parameters = new HashMap<>();
+        parameters.put("viewMode", "All");
+        parameters.put("since", LocalDate.of(2020, 1, 1));
+        parameters.put("till", LocalDate.of(2020, 12, 31));
+        parameters.put("members", members);
+        parameters.put("$skip", "100");
+        parameters.put("$fields", "*,data(location(name,parent!),member(emails,name),reason)");
+
+        var fields = new FieldSpecs(true, new HashMap<>(),
+                BatchResponse.structure(DatatypeStructureDiscovery.structure(AbsenceRecord.class)));
+        fields.addField("data", "member", "name");
+        fields.addField("data", "member", "emails");
+        fields.addField("data", "reason");
+        fields.addField("data", "location", "name");
+        fields.addRecursiveField("data", "location", "parent");
+        compiledParameters = new HashMap<>(parameters);
+        compiledParameters.put("$fields", fields.compile());
+    }
+
+    @Benchmark
+    public String toQueryParameters() {
+        return SpaceQueryParameters.toQueryParameters(parameters);
+    }
+
+    @Benchmark
+    public String toQueryParametersCompiled() {
+        return SpaceQueryParameters.toQueryParameters(compiledParameters);
+    }
+}
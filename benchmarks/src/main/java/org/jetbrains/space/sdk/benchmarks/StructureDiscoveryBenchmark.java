@@ -0,0 +1,32 @@
+package org.jetbrains.space.sdk.benchmarks;
+
+import org.jetbrains.space.sdk.datatype.AbsenceRecord;
+import org.jetbrains.space.sdk.datatype.DatatypeStructureDiscovery;
+import org.jetbrains.space.sdk.datatype.TD_MemberProfile;
+import org.jetbrains.space.sdk.fields.DatatypeStructure;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the structure of a datatype, as done for every request construction.
+ * The structures of the SDK types are generated at build time, so this measures the lookup of a constant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StructureDiscoveryBenchmark {
+
+    @Benchmark
+    public DatatypeStructure profile() {
+        return DatatypeStructureDiscovery.structure(TD_MemberProfile.class);
+    }
+
+    @Benchmark
+    public DatatypeStructure absence() {
+        return DatatypeStructureDiscovery.structure(AbsenceRecord.class);
+    }
+}
@@ -0,0 +1,57 @@
+package org.jetbrains.space.sdk.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.space.sdk.api.SpaceTransport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Injects connection-level faults into the requests delivered by another transport.
+ *
+ * A GOAWAY fault models an HTTP/2 server closing the connection while a request is in flight:
+ * the request reaches the server, but the response is lost, and the request fails with the same IOException
+ * the JDK HTTP client fails with.
+ */
+public class FaultInjectingTransport implements SpaceTransport {
+
+    private final @NotNull SpaceTransport delegate;
+    private volatile double goAwayRate = 0;
+    private final @NotNull LongAdder goAways = new LongAdder();
+
+    public FaultInjectingTransport(@NotNull SpaceTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Lose the responses of a fraction of the requests to GOAWAY.
+     */
+    public @NotNull FaultInjectingTransport setGoAwayRate(double goAwayRate) {
+        this.goAwayRate = goAwayRate;
+        return this;
+    }
+
+    public long getGoAways() {
+        return goAways.sum();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Response> send(@NotNull Request request) {
+        var res = delegate.send(request);
+        if (ThreadLocalRandom.current().nextDouble() >= goAwayRate) {
+            return res;
+        }
+        return res.thenCompose(response -> {
+            try {
+                response.getBody().close();
+            } catch (IOException ignored) {
+                // the response is lost anyway
+            }
+            goAways.increment();
+            return CompletableFuture.failedFuture(new IOException("/" + request.getUri().getAuthority()
+                    + ": GOAWAY received"));
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package org.jetbrains.space.sdk.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Applies a "$fields" parameter to a response the way Space does, e.g. "next,totalCount,data(id,member(name))".
+ *
+ * A wildcard "*" selects the fields of the object itself: the primitive fields, the value objects without an ID
+ * (names, dates, custom fields) and the referenced objects, reduced to their IDs.
+ * A field without nested fields, e.g. "member", selects the wildcard fields of the nested object.
+ * A recursive field, e.g. "managers!", selects the nested object as is.
+ * The elements of a batch are selected by a wildcard of the batch itself, e.g. "*" for "*,data(*)".
+ */
+class FieldFilter {
+
+    /**
+     * The filter applied when there is no "$fields" parameter.
+     */
+    static final FieldFilter WILDCARD = new FieldFilter(true, false, Map.of());
+    private static final FieldFilter RECURSIVE = new FieldFilter(false, true, Map.of());
+
+    private final boolean wildcard;
+    private final boolean recursive;
+    private final @NotNull Map<String, FieldFilter> fields;
+
+    private FieldFilter(boolean wildcard, boolean recursive, @NotNull Map<String, FieldFilter> fields) {
+        this.wildcard = wildcard;
+        this.recursive = recursive;
+        this.fields = fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the fields are malformed.
+     */
+    static @NotNull FieldFilter parse(@NotNull String fields) {
+        var parser = new Parser(fields);
+        var res = parser.fields();
+        if (parser.position != fields.length()) {
+            throw new IllegalArgumentException("unexpected '" + fields.charAt(parser.position) + "' at "
+                    + parser.position + " in $fields");
+        }
+        return res;
+    }
+
+    /**
+     * @return the filter of a batch response, selecting the elements with a wildcard unless specified otherwise.
+     */
+    @NotNull FieldFilter forBatch() {
+        if (!wildcard || fields.containsKey("data")) {
+            return this;
+        }
+        var res = new LinkedHashMap<>(fields);
+        res.put("data", WILDCARD);
+        return new FieldFilter(true, recursive, res);
+    }
+
+    /**
+     * @return a filtered copy of the element, the element itself if it is selected as is.
+     */
+    @NotNull JsonElement apply(@NotNull JsonElement element) {
+        if (recursive) {
+            return element;
+        }
+        if (element.isJsonArray()) {
+            var res = new JsonArray();
+            for (JsonElement item : element.getAsJsonArray()) {
+                res.add(apply(item));
+            }
+            return res;
+        }
+        if (!element.isJsonObject()) {
+            return element;
+        }
+        var object = element.getAsJsonObject();
+        var res = new JsonObject();
+        if (wildcard) {
+            for (var entry : object.entrySet()) {
+                if (!fields.containsKey(entry.getKey())) {
+                    res.add(entry.getKey(), reference(entry.getValue()));
+                }
+            }
+        }
+        for (var entry : fields.entrySet()) {
+            var value = object.get(entry.getKey());
+            if (value != null) {
+                res.add(entry.getKey(), entry.getValue().apply(value));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return the element as selected by a wildcard of the enclosing object.
+     */
+    private static @NotNull JsonElement reference(@NotNull JsonElement element) {
+        if (element.isJsonArray()) {
+            var res = new JsonArray();
+            for (JsonElement item : element.getAsJsonArray()) {
+                res.add(reference(item));
+            }
+            return res;
+        }
+        if (element.isJsonObject() && element.getAsJsonObject().has("id")) {
+            var res = new JsonObject();
+            res.add("id", element.getAsJsonObject().get("id"));
+            return res;
+        }
+        return element;
+    }
+
+    private static class Parser {
+        private final @NotNull String input;
+        private int position = 0;
+
+        private Parser(@NotNull String input) {
+            this.input = input;
+        }
+
+        private @NotNull FieldFilter fields() {
+            boolean wildcard = false;
+            var fields = new LinkedHashMap<String, FieldFilter>();
+            while (true) {
+                if (position < input.length() && input.charAt(position) == '*') {
+                    position++;
+                    wildcard = true;
+                } else {
+                    field(fields);
+                }
+                if (position < input.length() && input.charAt(position) == ',') {
+                    position++;
+                } else {
+                    return new FieldFilter(wildcard, false, fields);
+                }
+            }
+        }
+
+        private void field(@NotNull Map<String, FieldFilter> fields) {
+            int start = position;
+            while (position < input.length() && "(),!*".indexOf(input.charAt(position)) < 0) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException("a field name expected at " + position + " in $fields");
+            }
+            String name = input.substring(start, position);
+            if (position < input.length() && input.charAt(position) == '!') {
+                position++;
+                fields.put(name, RECURSIVE);
+            } else if (position < input.length() && input.charAt(position) == '(') {
+                position++;
+                fields.put(name, fields());
+                if (position >= input.length() || input.charAt(position) != ')') {
+                    throw new IllegalArgumentException("')' expected at " + position + " in $fields");
+                }
+                position++;
+            } else {
+                fields.put(name, WILDCARD);
+            }
+        }
+    }
+}
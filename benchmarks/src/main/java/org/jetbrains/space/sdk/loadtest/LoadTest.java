@@ -0,0 +1,258 @@
+package org.jetbrains.space.sdk.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.api.ApiRequest;
+import org.jetbrains.space.sdk.api.HedgingPolicy;
+import org.jetbrains.space.sdk.api.RetryPolicy;
+import org.jetbrains.space.sdk.api.SpaceService;
+import org.jetbrains.space.sdk.api.SpaceTransport;
+import org.jetbrains.space.sdk.metrics.HistogramMetrics;
+import org.jetbrains.space.sdk.metrics.LatencyHistogram;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Drives a {@link SpaceService} from many threads against a {@link MockSpaceServer} with injected faults,
+ * then reports the throughput and the latency percentiles of every operation.
+ *
+ * Run with {@code java -cp target/benchmarks.jar org.jetbrains.space.sdk.loadtest.LoadTest [--option=value...]},
+ * see {@link #OPTIONS} for the options and their defaults. For example, {@code --threads=64 --throttled=0.05}
+ * measures the throughput under throttling.
+ */
+public class LoadTest {
+
+    private static final Map<String, String> OPTIONS = Map.ofEntries(
+            Map.entry("threads", "16"),
+            Map.entry("warmup", "5"), // seconds
+            Map.entry("duration", "30"), // seconds
+            Map.entry("profiles", "2000"),
+            Map.entry("seed", "0"),
+            Map.entry("latency", "20"), // milliseconds
+            Map.entry("jitter", "10"), // milliseconds
+            Map.entry("tail-rate", "0"),
+            Map.entry("tail-latency", "500"), // milliseconds
+            Map.entry("throttled", "0"),
+            Map.entry("retry-after", "-1"), // seconds, negative to omit the header
+            Map.entry("server-errors", "0"),
+            Map.entry("goaway", "0"),
+            Map.entry("hedge-quantile", "0"), // 0 not to hedge
+            Map.entry("hedge-rate", "0.05"),
+            Map.entry("retries", "2"),
+            Map.entry("rate", "100"), // the initial request rate, 0 not to rate limit
+            Map.entry("max-rate", "1000"),
+            Map.entry("timeout", "0"), // milliseconds, 0 for none
+            Map.entry("members", "20") // per absence and member location request
+    );
+
+    /**
+     * The operations performed by every thread, picked at random by weight.
+     */
+    private enum Operation {
+        PROFILE(50, test -> test.service.getProfile(test.randomProfileId())),
+        ABSENCES(20, test -> test.service.getAbsences("All")
+                .addParameterList("members", test.randomProfileIds())
+                .addField("member", "name")
+                .addField("reason", "name")),
+        MEMBER_LOCATIONS(15, test -> test.service.getMemberLocations()
+                .addParameterList("members", test.randomProfileIds())
+                .addField("location", "name")),
+        HOLIDAYS(10, test -> test.service.getHolidays()),
+        ALL_PROFILES(5, test -> test.service.getProfiles()
+                .addField("name")
+                .addField("emails"));
+
+        private final int weight;
+        private final @NotNull Function<LoadTest, ApiRequest<?>> request;
+
+        Operation(int weight, @NotNull Function<LoadTest, ApiRequest<?>> request) {
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+
+    private final @NotNull SpaceService service;
+    private final @NotNull List<String> profileIds;
+    private final int members;
+    private final @NotNull Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final @NotNull Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+
+    private LoadTest(@NotNull SpaceService service, @NotNull List<String> profileIds, int members) {
+        this.service = service;
+        this.profileIds = profileIds;
+        this.members = members;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    private @NotNull String randomProfileId() {
+        return profileIds.get(ThreadLocalRandom.current().nextInt(profileIds.size()));
+    }
+
+    private @NotNull List<String> randomProfileIds() {
+        var res = new ArrayList<String>(members);
+        for (int i = 0; i < members; i++) {
+            res.add(randomProfileId());
+        }
+        return res;
+    }
+
+    private static @NotNull Operation randomOperation() {
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += operation.weight;
+        }
+        int choice = ThreadLocalRandom.current().nextInt(total);
+        for (Operation operation : Operation.values()) {
+            choice -= operation.weight;
+            if (choice < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Perform random operations until the end, recording the ones started after the measurement start.
+     */
+    private void run(long measurementStart, long end) {
+        long now;
+        while ((now = System.nanoTime()) - end < 0) {
+            var operation = randomOperation();
+            boolean failed = false;
+            try {
+                operation.request.apply(this).execute();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failed = true;
+            }
+            if (now - measurementStart >= 0) {
+                latencies.get(operation).record(System.nanoTime() - now);
+                if (failed) {
+                    failures.get(operation).increment();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new HashMap<>(OPTIONS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String key = arg.startsWith("--") && separator > 0 ? arg.substring(2, separator) : null;
+            if (key == null || !options.containsKey(key)) {
+                System.err.println("Unknown option " + arg + ", the options are --<name>=<value> with the defaults "
+                        + OPTIONS);
+                System.exit(1);
+            }
+            options.put(key, arg.substring(separator + 1));
+        }
+        int threads = Integer.parseInt(options.get("threads"));
+        var warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup")));
+        var duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+        long retryAfter = Long.parseLong(options.get("retry-after"));
+
+        try (var server = new MockSpaceServer(Integer.parseInt(options.get("profiles")),
+                Long.parseLong(options.get("seed")))) {
+            server.setLatency(Duration.ofMillis(Long.parseLong(options.get("latency"))),
+                            Duration.ofMillis(Long.parseLong(options.get("jitter"))))
+                    .setTailLatency(Double.parseDouble(options.get("tail-rate")),
+                            Duration.ofMillis(Long.parseLong(options.get("tail-latency"))))
+                    .setThrottledRate(Double.parseDouble(options.get("throttled")),
+                            retryAfter < 0 ? null : Duration.ofSeconds(retryAfter))
+                    .setServerErrorRate(Double.parseDouble(options.get("server-errors")));
+            var transport = new FaultInjectingTransport(SpaceTransport.of(HttpClient.newHttpClient(), null))
+                    .setGoAwayRate(Double.parseDouble(options.get("goaway")));
+            var metrics = new HistogramMetrics();
+            long timeout = Long.parseLong(options.get("timeout"));
+            var retryPolicy = new RetryPolicy()
+                    .setMaxRetries(Integer.parseInt(options.get("retries")))
+                    .setTimeout(timeout > 0 ? Duration.ofMillis(timeout) : null);
+            var builder = SpaceService.builder()
+                    .setBaseUri(server.getBaseUri())
+                    .setServiceCredentials(MockSpaceServer.SERVICE_ID, MockSpaceServer.SERVICE_SECRET)
+                    .setTransport(transport)
+                    .setMetrics(metrics)
+                    .setRetryPolicy(retryPolicy);
+            double hedgeQuantile = Double.parseDouble(options.get("hedge-quantile"));
+            var hedging = hedgeQuantile > 0
+                    ? new HedgingPolicy(hedgeQuantile, Double.parseDouble(options.get("hedge-rate"))) : null;
+            if (hedging != null) {
+                builder.setHedgingPolicy(hedging);
+            }
+            double rate = Double.parseDouble(options.get("rate"));
+            if (rate > 0) {
+                builder.setRequestRate(rate, Double.parseDouble(options.get("max-rate")));
+            }
+            var service = builder.build();
+            var test = new LoadTest(service, server.getProfileIds(), Integer.parseInt(options.get("members")));
+
+            System.out.println("Running " + threads + " threads for " + warmup.toSeconds() + " s of warmup and "
+                    + duration.toSeconds() + " s of measurement, " + options);
+            long measurementStart = System.nanoTime() + warmup.toNanos();
+            long end = measurementStart + duration.toNanos();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> test.run(measurementStart, end));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(duration.plus(warmup).toSeconds() + 600, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+            test.report(duration, server, transport, hedging, retryPolicy, metrics);
+        }
+    }
+
+    private void report(@NotNull Duration duration, @NotNull MockSpaceServer server,
+                        @NotNull FaultInjectingTransport transport, @Nullable HedgingPolicy hedging,
+                        @NotNull RetryPolicy retryPolicy, @NotNull HistogramMetrics metrics) {
+        long total = 0;
+        long totalFailures = 0;
+        var out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-16s %8s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "failed", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Operation operation : Operation.values()) {
+            var latency = latencies.get(operation).snapshot();
+            long failed = failures.get(operation).sum();
+            total += latency.getCount();
+            totalFailures += failed;
+            out.append(String.format(Locale.ROOT, "%-16s %8d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    operation, latency.getCount(), failed, millis(latency.getP50()), millis(latency.getP99()),
+                    millis(latency.getP999()), millis(latency.getMax())));
+        }
+        out.append(String.format(Locale.ROOT, "throughput: %.1f operations/s, %d failed%n",
+                (double) total / duration.toSeconds(), totalFailures));
+        out.append(String.format(Locale.ROOT,
+                "server: %d requests, %d throttled, %d server errors, %d token requests, %d GOAWAY%n",
+                server.getRequests(), server.getThrottled(), server.getServerErrors(), server.getTokenRequests(),
+                transport.getGoAways()));
+        out.append(String.format(Locale.ROOT, "retries: %d denied by the budget%n", retryPolicy.getBudgetExhausted()));
+        if (hedging != null) {
+            out.append(String.format(Locale.ROOT, "hedging: %d hedges, %d won%n", hedging.getHedges(),
+                    hedging.getHedgeWins()));
+        }
+        out.append(metrics);
+        System.out.println(out);
+    }
+
+    private static double millis(@NotNull Duration duration) {
+        return duration.toNanos() / 1e6;
+    }
+}
@@ -0,0 +1,274 @@
+package org.jetbrains.space.sdk.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The organization served by {@link MockSpaceServer}: profiles, their locations and absences, and public holidays.
+ *
+ * The data is generated from a seed, so that the same seed always results in the same responses.
+ * The records are kept as JSON trees in the Space API format, with every field present.
+ */
+class MockData {
+
+    private static final String[] FIRST_NAMES = {"Julia", "Lena", "Ivan", "Pieter", "Marta", "Tomas", "Anna",
+            "Oleg", "Sophie", "Jan", "Eva", "Mikhail", "Clara", "Niels", "Irina", "Paul"};
+    private static final String[] LAST_NAMES = {"Horvat", "Petrov", "de Vries", "Novak", "Schmidt", "Jansen",
+            "Ivanova", "Kowalski", "Muller", "Berg", "Smirnov", "Dvorak"};
+    private static final String[] TEAMS = {"Space", "IntelliJ", "Kotlin", "Marketing", "Sales", "HR", "Research"};
+    private static final String[] ROLES = {"Developer", "QA Engineer", "Designer", "Manager", "Analyst"};
+    private static final String[][] CITIES = {{"Amsterdam", "Netherlands"}, {"Prague", "Czech Republic"},
+            {"Munich", "Germany"}, {"Berlin", "Germany"}, {"Boston", "USA"}};
+    private static final String[] REASONS = {"Vacation", "Sick leave", "Offsite", "Business trip"};
+    private static final String[] SKILLS = {"Java", "Kotlin", "Go", "SQL", "Design", "Writing"};
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    private final @NotNull Random random;
+
+    final @NotNull List<JsonObject> profiles = new ArrayList<>();
+    final @NotNull Map<String, JsonObject> profilesById = new HashMap<>();
+    final @NotNull Map<String, JsonObject> profilesByEmail = new HashMap<>();
+    final @NotNull List<JsonObject> memberLocations = new ArrayList<>();
+    final @NotNull List<JsonObject> absences = new ArrayList<>();
+    final @NotNull List<JsonObject> holidays = new ArrayList<>();
+
+    /**
+     * @param profileCount the number of profiles. Every profile has one or two locations and about five absences.
+     */
+    MockData(int profileCount, long seed) {
+        random = new Random(seed);
+        var locations = new ArrayList<JsonObject>();
+        var countries = new HashMap<String, JsonObject>();
+        for (String[] city : CITIES) {
+            var country = countries.computeIfAbsent(city[1], name -> location(name, "Country", null));
+            locations.add(location(city[0], "City", country));
+        }
+        var teams = new ArrayList<JsonObject>();
+        var root = named(id(), "Company");
+        for (String team : TEAMS) {
+            var res = named(id(), team);
+            res.add("parent", reference(root));
+            teams.add(res);
+        }
+        var roles = new ArrayList<JsonObject>();
+        for (String role : ROLES) {
+            roles.add(named(id(), role));
+        }
+        var reasons = new ArrayList<JsonObject>();
+        for (String reason : REASONS) {
+            reasons.add(named(id(), reason));
+        }
+
+        for (int i = 0; i < profileCount; i++) {
+            var profile = profile(i, teams, roles);
+            profiles.add(profile);
+            profilesById.put(profile.get("id").getAsString(), profile);
+            for (JsonElement email : profile.getAsJsonArray("emails")) {
+                profilesByEmail.put(email.getAsJsonObject().get("email").getAsString(), profile);
+            }
+        }
+        for (JsonObject profile : profiles) {
+            var managers = new JsonArray();
+            if (profiles.size() > 1) {
+                managers.add(reference(profiles.get(random.nextInt(profiles.size()))));
+            }
+            profile.add("managers", managers);
+
+            var profileLocations = new JsonArray();
+            LocalDate since = date(START.minusYears(3), 365);
+            int count = 1 + random.nextInt(2);
+            for (int j = 0; j < count; j++) {
+                LocalDate till = j == count - 1 ? null : since.plusDays(100 + random.nextInt(500));
+                var memberLocation = new JsonObject();
+                memberLocation.addProperty("id", id());
+                memberLocation.addProperty("archived", false);
+                memberLocation.add("location", locations.get(random.nextInt(locations.size())));
+                memberLocation.add("since", date(since));
+                memberLocation.add("till", date(till));
+                // the profile embeds its locations with a reference to itself, the locations endpoint the profile
+                var embedded = memberLocation.deepCopy();
+                embedded.add("member", reference(profile));
+                profileLocations.add(embedded);
+                memberLocation.add("member", profile);
+                memberLocations.add(memberLocation);
+                since = till;
+            }
+            profile.add("locations", profileLocations);
+
+            int absenceCount = random.nextInt(10);
+            for (int j = 0; j < absenceCount; j++) {
+                LocalDate absenceSince = date(START, 365);
+                var absence = new JsonObject();
+                absence.addProperty("id", id());
+                absence.addProperty("archived", random.nextInt(10) == 0);
+                absence.add("member", profile);
+                absence.addProperty("description", random.nextBoolean() ? "Family trip" : "");
+                absence.add("since", date(absenceSince));
+                absence.add("till", date(absenceSince.plusDays(random.nextInt(14))));
+                absence.add("location", profileLocations.get(0).getAsJsonObject().get("location"));
+                absence.add("reason", reasons.get(random.nextInt(reasons.size())));
+                absences.add(absence);
+            }
+        }
+
+        for (int i = 0; i < 30; i++) {
+            var holiday = named(id(), "Holiday " + i);
+            holiday.add("date", date(date(START, 365 * 2)));
+            holiday.addProperty("workingDay", false);
+            holiday.addProperty("halfDay", random.nextInt(5) == 0);
+            holidays.add(holiday);
+        }
+        holidays.sort((a, b) -> a.getAsJsonObject("date").get("iso").getAsString()
+                .compareTo(b.getAsJsonObject("date").get("iso").getAsString()));
+    }
+
+    private @NotNull JsonObject profile(int number, @NotNull List<JsonObject> teams, @NotNull List<JsonObject> roles) {
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        var res = new JsonObject();
+        res.addProperty("id", id());
+        res.addProperty("username", (firstName.charAt(0) + lastName).toLowerCase().replace(" ", "") + number);
+        var name = new JsonObject();
+        name.addProperty("firstName", firstName);
+        name.addProperty("lastName", lastName);
+        res.add("name", name);
+        LocalDate joined = date(START.minusYears(10), 365 * 10);
+        res.add("joined", date(joined));
+        if (random.nextInt(10) == 0) {
+            var leftAt = new JsonObject();
+            var time = START.plusDays(random.nextInt(365)).atTime(18, 0);
+            leftAt.addProperty("iso", time.toString() + ":00");
+            leftAt.addProperty("timestamp", time.toInstant(ZoneOffset.UTC).toEpochMilli());
+            res.add("leftAt", leftAt);
+        } else {
+            res.add("leftAt", JsonNull.INSTANCE);
+        }
+        res.add("birthday", date(date(LocalDate.of(1960, 1, 1), 365 * 40)));
+        res.addProperty("about", "Works on " + TEAMS[random.nextInt(TEAMS.length)] + ".");
+        res.addProperty("avatar", id());
+        res.addProperty("smallAvatar", id());
+        res.addProperty("profilePicture", id());
+        res.addProperty("notAMember", false);
+        res.add("externalId", JsonNull.INSTANCE);
+        var emails = new JsonArray();
+        var email = new JsonObject();
+        email.addProperty("id", id());
+        email.addProperty("email", res.get("username").getAsString() + "@example.com");
+        emails.add(email);
+        res.add("emails", emails);
+
+        var memberships = new JsonArray();
+        for (int i = 0, count = 1 + random.nextInt(2); i < count; i++) {
+            var membership = new JsonObject();
+            membership.addProperty("id", id());
+            membership.add("since", date(joined));
+            membership.add("till", JsonNull.INSTANCE);
+            membership.add("team", teams.get(random.nextInt(teams.size())));
+            membership.add("role", roles.get(random.nextInt(roles.size())));
+            memberships.add(membership);
+        }
+        res.add("memberships", memberships);
+
+        var customFields = new JsonObject();
+        customFields.add("Employee Number", customField("StringCFValue", "value",
+                new JsonPrimitive(String.format("E%05d", number))));
+        var gender = named(id(), random.nextBoolean() ? "Female" : "Male");
+        gender.add("value", gender.remove("name"));
+        customFields.add("Gender", customField("EnumCFValue", "value", gender));
+        customFields.add("Employment Start", customField("DateCFValue", "value", date(joined)));
+        customFields.add("Is Remote", customField("BooleanCFValue", "value",
+                new JsonPrimitive(random.nextInt(4) == 0)));
+        var skills = new JsonArray();
+        skills.add(SKILLS[random.nextInt(SKILLS.length)]);
+        customFields.add("Skills", customField("StringListCFValue", "values", skills));
+        res.add("customFields", customFields);
+        return res;
+    }
+
+    private static @NotNull JsonObject customField(@NotNull String className, @NotNull String property,
+                                                   @NotNull JsonElement value) {
+        var res = new JsonObject();
+        res.addProperty("className", className);
+        res.add(property, value);
+        return res;
+    }
+
+    private @NotNull JsonObject location(@NotNull String name, @NotNull String type, @Nullable JsonObject parent) {
+        var res = named(id(), name);
+        res.addProperty("type", type);
+        if (parent != null) {
+            res.add("parent", parent);
+        }
+        return res;
+    }
+
+    private static @NotNull JsonObject named(@NotNull String id, @NotNull String name) {
+        var res = new JsonObject();
+        res.addProperty("id", id);
+        res.addProperty("name", name);
+        return res;
+    }
+
+    private static @NotNull JsonObject reference(@NotNull JsonObject object) {
+        var res = new JsonObject();
+        res.add("id", object.get("id"));
+        return res;
+    }
+
+    private @NotNull LocalDate date(@NotNull LocalDate from, int days) {
+        return from.plusDays(random.nextInt(days));
+    }
+
+    /**
+     * @return the date in the Space API format, e.g. {"iso": "2020-01-02", "year": 2020, "month": 1, "day": 2}.
+     */
+    static @NotNull JsonElement date(@Nullable LocalDate date) {
+        if (date == null) {
+            return JsonNull.INSTANCE;
+        }
+        var res = new JsonObject();
+        res.addProperty("iso", date.toString());
+        res.addProperty("year", date.getYear());
+        res.addProperty("month", date.getMonthValue());
+        res.addProperty("day", date.getDayOfMonth());
+        return res;
+    }
+
+    static @Nullable LocalDate parseDate(@NotNull JsonElement date) {
+        return date.isJsonNull() ? null : LocalDate.parse(date.getAsJsonObject().get("iso").getAsString());
+    }
+
+    private @NotNull String id() {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        var res = new StringBuilder(12);
+        for (int i = 0; i < 12; i++) {
+            res.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return res.toString();
+    }
+
+    /**
+     * @return the IDs of all profiles, in the order they are listed.
+     */
+    @NotNull List<String> profileIds() {
+        var res = new ArrayList<String>(profiles.size());
+        for (JsonObject profile : profiles) {
+            res.add(profile.get("id").getAsString());
+        }
+        return Collections.unmodifiableList(res);
+    }
+}
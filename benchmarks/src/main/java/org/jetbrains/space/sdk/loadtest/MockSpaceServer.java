@@ -0,0 +1,438 @@
+package org.jetbrains.space.sdk.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An embedded fake Space server, to test and measure the SDK offline.
+ *
+ * Implements the OAuth client credentials flow and the following endpoints over {@link MockData}:
+ * - "/api/http/team-directory/profiles", also by "id:" and "email:";
+ * - "/api/http/team-directory/member-locations", filtered by "members";
+ * - "/api/http/absences", filtered by "members", "since" and "till";
+ * - "/api/http/public-holidays/holidays", filtered by "startDate" and "endDate".
+ * The batches are paginated with "$skip" and "$top" the way Space does, and every response is filtered by "$fields".
+ *
+ * Latency, "429 Too Many Requests" and server errors can be injected into the API responses.
+ * The server speaks HTTP/1.1 only, so connection-level faults such as HTTP/2 GOAWAY are injected on the client side
+ * with {@link FaultInjectingTransport}.
+ *
+ * For example, {@code SpaceService.builder().setBaseUri(server.getBaseUri()).setServiceCredentials(
+ * MockSpaceServer.SERVICE_ID, MockSpaceServer.SERVICE_SECRET).build()} queries the server.
+ */
+public class MockSpaceServer implements AutoCloseable {
+
+    public static final String SERVICE_ID = "mock-service";
+    public static final String SERVICE_SECRET = "mock-secret";
+    private static final String BASIC_AUTHORIZATION = "Basic " + Base64.getEncoder()
+            .encodeToString((SERVICE_ID + ":" + SERVICE_SECRET).getBytes(StandardCharsets.UTF_8));
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final @NotNull MockData data;
+    private final @NotNull HttpServer server;
+    private final @NotNull ExecutorService executor;
+    /**
+     * The valid access tokens and their expiration times, in System.nanoTime() terms.
+     */
+    private final @NotNull Map<String, Long> tokens = new ConcurrentHashMap<>();
+
+    private volatile @NotNull Duration latency = Duration.ZERO;
+    private volatile @NotNull Duration latencyJitter = Duration.ZERO;
+    private volatile double tailLatencyRate = 0;
+    private volatile @NotNull Duration tailLatency = Duration.ZERO;
+    private volatile double throttledRate = 0;
+    private volatile @Nullable Duration retryAfter = null;
+    private volatile double serverErrorRate = 0;
+    private volatile @NotNull Duration tokenTtl = Duration.ofMinutes(10);
+    private volatile int pageSize = DEFAULT_PAGE_SIZE;
+    private volatile boolean compression = true;
+
+    private final @NotNull LongAdder requests = new LongAdder();
+    private final @NotNull LongAdder throttled = new LongAdder();
+    private final @NotNull LongAdder serverErrors = new LongAdder();
+    private final @NotNull LongAdder tokenRequests = new LongAdder();
+
+    /**
+     * Start the server on a free local port.
+     *
+     * @param profiles the number of profiles in the organization.
+     * @param seed the seed the data is generated from.
+     */
+    public MockSpaceServer(int profiles, long seed) throws IOException {
+        this(profiles, seed, 0);
+    }
+
+    /**
+     * @param port the local port to listen on, 0 for a free one.
+     */
+    public MockSpaceServer(int profiles, long seed, int port) throws IOException {
+        data = new MockData(profiles, seed);
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        var threadNumber = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "mock-space-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/oauth/token", this::handleToken);
+        server.createContext("/api/http/", this::handleApi);
+        server.start();
+    }
+
+    public @NotNull URI getBaseUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    /**
+     * @return the IDs of all profiles, in the order they are listed.
+     */
+    public @NotNull List<String> getProfileIds() {
+        return data.profileIds();
+    }
+
+    /**
+     * Delay every API response by the latency plus a uniformly random part of the jitter.
+     */
+    public @NotNull MockSpaceServer setLatency(@NotNull Duration latency, @NotNull Duration jitter) {
+        this.latency = latency;
+        this.latencyJitter = jitter;
+        return this;
+    }
+
+    /**
+     * Delay a fraction of the API responses by the tail latency instead, to model slow outliers.
+     */
+    public @NotNull MockSpaceServer setTailLatency(double rate, @NotNull Duration tailLatency) {
+        this.tailLatencyRate = rate;
+        this.tailLatency = tailLatency;
+        return this;
+    }
+
+    /**
+     * Respond to a fraction of the API requests with "429 Too Many Requests".
+     *
+     * @param retryAfter the "Retry-After" header value, rounded up to seconds. Null to omit the header.
+     */
+    public @NotNull MockSpaceServer setThrottledRate(double rate, @Nullable Duration retryAfter) {
+        this.throttledRate = rate;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * Respond to a fraction of the API requests with "500 Internal Server Error" or "503 Service Unavailable".
+     */
+    public @NotNull MockSpaceServer setServerErrorRate(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    /**
+     * @param tokenTtl how long the issued access tokens are valid. Expired tokens are rejected with "401 Unauthorized".
+     */
+    public @NotNull MockSpaceServer setTokenTtl(@NotNull Duration tokenTtl) {
+        this.tokenTtl = tokenTtl;
+        return this;
+    }
+
+    /**
+     * @param pageSize the batch size when there is no "$top" parameter.
+     */
+    public @NotNull MockSpaceServer setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @param compression whether to compress the responses with gzip when the client accepts it. Enabled by default.
+     */
+    public @NotNull MockSpaceServer setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * @return the number of API requests received, including the ones failed on purpose.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    public long getTokenRequests() {
+        return tokenRequests.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleToken(@NotNull HttpExchange exchange) throws IOException {
+        tokenRequests.increment();
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, error("method-not-allowed", "POST expected"));
+            return;
+        }
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (!BASIC_AUTHORIZATION.equals(exchange.getRequestHeaders().getFirst("Authorization"))
+                || !parameters(body).getOrDefault("grant_type", List.of()).contains("client_credentials")) {
+            send(exchange, 401, error("invalid_client", "Invalid client credentials"));
+            return;
+        }
+        var ttl = tokenTtl;
+        String token = UUID.randomUUID().toString();
+        tokens.put(token, System.nanoTime() + ttl.toNanos());
+        var res = new JsonObject();
+        res.addProperty("token_type", "Bearer");
+        res.addProperty("expires_in", ttl.toSeconds());
+        res.addProperty("access_token", token);
+        send(exchange, 200, res);
+    }
+
+    private void handleApi(@NotNull HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            Long expiration = authorization == null || !authorization.startsWith("Bearer ")
+                    ? null : tokens.get(authorization.substring("Bearer ".length()));
+            if (expiration == null || expiration - System.nanoTime() < 0) {
+                send(exchange, 401, error("invalid_token", "Access token is invalid or expired"));
+                return;
+            }
+            if (!delay()) {
+                exchange.close();
+                return;
+            }
+            var random = ThreadLocalRandom.current();
+            if (random.nextDouble() < throttledRate) {
+                throttled.increment();
+                var pause = retryAfter;
+                if (pause != null) {
+                    long seconds = pause.toSeconds() + (pause.toNanosPart() > 0 ? 1 : 0);
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(seconds));
+                }
+                send(exchange, 429, error("rate-limited", "Too many requests"));
+                return;
+            }
+            if (random.nextDouble() < serverErrorRate) {
+                serverErrors.increment();
+                send(exchange, random.nextBoolean() ? 500 : 503, error("internal-error", "Injected failure"));
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("method-not-allowed", "GET expected"));
+                return;
+            }
+            var parameters = parameters(exchange.getRequestURI().getRawQuery());
+            var fields = parameters.containsKey("$fields")
+                    ? FieldFilter.parse(parameters.get("$fields").get(0)) : FieldFilter.WILDCARD;
+            var response = respond(exchange.getRequestURI().getPath(), parameters, fields);
+            if (response == null) {
+                send(exchange, 404, error("not-found", "Not found"));
+            } else {
+                send(exchange, 200, response);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            send(exchange, 400, error("validation-error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * @return false if the server has been interrupted while delaying the response.
+     */
+    private boolean delay() {
+        var random = ThreadLocalRandom.current();
+        long nanos;
+        if (random.nextDouble() < tailLatencyRate) {
+            nanos = tailLatency.toNanos();
+        } else {
+            long jitter = latencyJitter.toNanos();
+            nanos = latency.toNanos() + (jitter > 0 ? random.nextLong(jitter) : 0);
+        }
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the filtered response, null if there is no such object.
+     */
+    private @Nullable JsonElement respond(@NotNull String path, @NotNull Map<String, List<String>> parameters,
+                                          @NotNull FieldFilter fields) {
+        String profiles = "/api/http/team-directory/profiles";
+        if (path.equals(profiles)) {
+            return batch(data.profiles, parameters, fields, profile -> true);
+        } else if (path.startsWith(profiles + "/id:")) {
+            return object(data.profilesById.get(path.substring((profiles + "/id:").length())), fields);
+        } else if (path.startsWith(profiles + "/email:")) {
+            return object(data.profilesByEmail.get(path.substring((profiles + "/email:").length())), fields);
+        } else if (path.equals("/api/http/team-directory/member-locations")) {
+            var members = members(parameters);
+            return batch(data.memberLocations, parameters, fields,
+                    location -> members.test(location.getAsJsonObject("member")));
+        } else if (path.equals("/api/http/absences")) {
+            var members = members(parameters);
+            var since = date(parameters, "since");
+            var till = date(parameters, "till");
+            return batch(data.absences, parameters, fields, absence -> members.test(absence.getAsJsonObject("member"))
+                    && (since == null || !MockData.parseDate(absence.get("till")).isBefore(since))
+                    && (till == null || !MockData.parseDate(absence.get("since")).isAfter(till)));
+        } else if (path.equals("/api/http/public-holidays/holidays")) {
+            var startDate = date(parameters, "startDate");
+            var endDate = date(parameters, "endDate");
+            return batch(data.holidays, parameters, fields, holiday -> {
+                var date = MockData.parseDate(holiday.get("date"));
+                return (startDate == null || !date.isBefore(startDate)) && (endDate == null || !date.isAfter(endDate));
+            });
+        }
+        return null;
+    }
+
+    private static @Nullable JsonElement object(@Nullable JsonObject object, @NotNull FieldFilter fields) {
+        return object == null ? null : fields.apply(object);
+    }
+
+    private static @NotNull Predicate<JsonObject> members(@NotNull Map<String, List<String>> parameters) {
+        if (!parameters.containsKey("members")) {
+            return member -> true;
+        }
+        var ids = new HashSet<String>();
+        for (String member : parameters.get("members")) {
+            ids.add(member.startsWith("id:") ? member.substring("id:".length()) : member);
+        }
+        return member -> ids.contains(member.get("id").getAsString());
+    }
+
+    private static @Nullable LocalDate date(@NotNull Map<String, List<String>> parameters, @NotNull String name) {
+        return parameters.containsKey(name) ? LocalDate.parse(parameters.get(name).get(0)) : null;
+    }
+
+    /**
+     * @return the page of the matching records selected by "$skip" and "$top".
+     * "next" is the "$skip" of the following page, equal to "$skip" if there are no more records.
+     */
+    private @NotNull JsonElement batch(@NotNull List<JsonObject> records,
+                                       @NotNull Map<String, List<String>> parameters, @NotNull FieldFilter fields,
+                                       @NotNull Predicate<JsonObject> filter) {
+        int skip = parameters.containsKey("$skip") ? Integer.parseInt(parameters.get("$skip").get(0)) : 0;
+        int top = parameters.containsKey("$top") ? Integer.parseInt(parameters.get("$top").get(0)) : pageSize;
+        if (skip < 0 || top < 0 || top > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("$skip or $top out of range");
+        }
+        var matching = new ArrayList<JsonObject>();
+        for (JsonObject record : records) {
+            if (filter.test(record)) {
+                matching.add(record);
+            }
+        }
+        int end = Math.min(matching.size(), skip + top);
+        var page = new JsonArray();
+        for (int i = skip; i < end; i++) {
+            page.add(matching.get(i));
+        }
+        var res = new JsonObject();
+        res.addProperty("next", String.valueOf(Math.max(skip, end)));
+        res.addProperty("totalCount", matching.size());
+        res.add("data", page);
+        return fields.forBatch().apply(res);
+    }
+
+    private static @NotNull Map<String, List<String>> parameters(@Nullable String query) {
+        var res = new HashMap<String, List<String>>();
+        if (query == null || query.isEmpty()) {
+            return res;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            String key = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            res.computeIfAbsent(URLDecoder.decode(key, StandardCharsets.UTF_8), ignored -> new ArrayList<>())
+                    .add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return res;
+    }
+
+    private static @NotNull JsonObject error(@NotNull String error, @NotNull String description) {
+        var res = new JsonObject();
+        res.addProperty("error", error);
+        res.addProperty("error_description", description);
+        return res;
+    }
+
+    private void send(@NotNull HttpExchange exchange, int statusCode, @NotNull JsonElement body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compression && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            var compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (var gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Run the server until killed: {@code MockSpaceServer [port] [profiles]}.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int profiles = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        var server = new MockSpaceServer(profiles, 0, port);
+        System.out.println("Serving " + profiles + " profiles at " + server.getBaseUri()
+                + ", service ID '" + SERVICE_ID + "', secret '" + SERVICE_SECRET + "'");
+    }
+}
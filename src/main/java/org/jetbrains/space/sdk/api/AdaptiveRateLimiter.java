@@ -0,0 +1,193 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket shared by all requests of a service, whose rate adapts to the server's throttling.
+ * <p>
+ * The rate grows additively, by a fixed amount per second worth of successful responses, and is halved when
+ * the server responds with "429 Too Many Requests" (at most once per second, so that a burst of rejections counts
+ * once).
+ * The limiter also pauses entirely for the time given in the "Retry-After" header, or when the rate limit headers
+ * report that no requests remain until the reset.
+ * <p>
+ * Permits are handed out by reservation: a request that can't proceed right away is scheduled for later,
+ * so the requests queue in front of the limiter without blocking any thread.
+ */
+class AdaptiveRateLimiter {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long DECREASE_COOLDOWN_NANOS = NANOS_PER_SECOND;
+
+  private final double minRate;
+  private final double maxRate;
+  private final double additiveIncrease;
+
+  /**
+   * The current rate, in permits per second.
+   */
+  private double rate;
+  /**
+   * The permits accumulated while the limiter was idle, at most one second worth of them.
+   */
+  private double storedPermits;
+  /**
+   * The time when the next permit can be handed out without using the stored permits.
+   */
+  private long nextFreeNanos;
+  private long pausedUntilNanos;
+  private long lastDecreaseNanos;
+
+  /**
+   * @param initialRate      the initial rate, in permits per second.
+   * @param minRate          the rate never drops below this value.
+   * @param maxRate          the rate never grows above this value.
+   * @param additiveIncrease how much the rate grows with every second worth of successful responses, i.e. with
+   *                         every {@code rate} responses.
+   */
+  AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double additiveIncrease) {
+    if (minRate <= 0 || minRate > initialRate || initialRate > maxRate) {
+      throw new IllegalArgumentException("expected 0 < minRate <= initialRate <= maxRate");
+    }
+    this.minRate = minRate;
+    this.maxRate = maxRate;
+    this.additiveIncrease = additiveIncrease;
+    rate = initialRate;
+    storedPermits = initialRate;
+    long now = System.nanoTime();
+    nextFreeNanos = now;
+    pausedUntilNanos = now;
+    lastDecreaseNanos = now - DECREASE_COOLDOWN_NANOS;
+  }
+
+  /**
+   * @return the current rate, in permits per second.
+   */
+  synchronized double getRate() {
+    return rate;
+  }
+
+  /**
+   * Wait for a permit.
+   *
+   * @param executor the executor to complete the future on, if it has to wait.
+   * @return the future that completes when the request may proceed.
+   */
+  @NotNull CompletableFuture<Void> acquire(@NotNull Executor executor) {
+    long delay = reserve();
+    if (delay <= 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS,
+            executor));
+  }
+
+  /**
+   * Reserve a permit.
+   *
+   * @return the delay in nanoseconds after which the permit can be used.
+   */
+  private synchronized long reserve() {
+    long now = System.nanoTime();
+    resync(now);
+    long start = Math.max(nextFreeNanos, pausedUntilNanos);
+    double spent = Math.min(1, storedPermits);
+    storedPermits -= spent;
+    nextFreeNanos = start + (long) ((1 - spent) / rate * NANOS_PER_SECOND);
+    return start - now;
+  }
+
+  private void resync(long now) {
+    if (now > nextFreeNanos && now > pausedUntilNanos) {
+      long idleSince = Math.max(nextFreeNanos, pausedUntilNanos);
+      storedPermits = Math.min(rate, storedPermits + (double) (now - idleSince) / NANOS_PER_SECOND * rate);
+      nextFreeNanos = now;
+    }
+  }
+
+  /**
+   * Report a successful response. Each response adds its share of the increase, growing the rate by a whole
+   * increase with every second worth of responses: a whole increase per response would compound with the rate.
+   */
+  synchronized void onSuccess() {
+    rate = Math.min(maxRate, rate + additiveIncrease / rate);
+  }
+
+  /**
+   * Report a "429 Too Many Requests" response.
+   *
+   * @param pause how long to stop handing out permits, e.g. the "Retry-After" value.
+   */
+  synchronized void onThrottled(@NotNull Duration pause) {
+    long now = System.nanoTime();
+    if (now - lastDecreaseNanos >= DECREASE_COOLDOWN_NANOS) {
+      rate = Math.max(minRate, rate / 2);
+      lastDecreaseNanos = now;
+    }
+    storedPermits = 0;
+    pausedUntilNanos = Math.max(pausedUntilNanos, now + pause.toNanos());
+  }
+
+  /**
+   * Check the rate limit headers of a response, pause if no requests remain until the reset.
+   */
+  void onHeaders(@NotNull HttpHeaders headers) {
+    Optional<String> remaining = headers.firstValue("X-RateLimit-Remaining")
+            .or(() -> headers.firstValue("RateLimit-Remaining"));
+    if (remaining.isEmpty() || !"0".equals(remaining.get().trim())) {
+      return;
+    }
+    headers.firstValue("X-RateLimit-Reset").or(() -> headers.firstValue("RateLimit-Reset"))
+            .flatMap(AdaptiveRateLimiter::parseReset)
+            .ifPresent(this::pause);
+  }
+
+  private synchronized void pause(@NotNull Duration pause) {
+    storedPermits = 0;
+    pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + pause.toNanos());
+  }
+
+  /**
+   * @return the "Retry-After" header value, which is either a number of seconds or an HTTP date.
+   */
+  static @NotNull Optional<Duration> retryAfter(@NotNull HttpHeaders headers) {
+    return headers.firstValue("Retry-After").flatMap(value -> {
+      try {
+        return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim()))));
+      } catch (NumberFormatException e) {
+        try {
+          var date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+          var pause = Duration.between(ZonedDateTime.now(date.getZone()), date);
+          return Optional.of(pause.isNegative() ? Duration.ZERO : pause);
+        } catch (DateTimeParseException ignored) {
+          return Optional.empty();
+        }
+      }
+    });
+  }
+
+  /**
+   * The reset is either a number of seconds until the reset, or the reset time in epoch seconds.
+   */
+  private static @NotNull Optional<Duration> parseReset(@NotNull String value) {
+    try {
+      long reset = Long.parseLong(value.trim());
+      if (reset > 1_000_000_000L) {
+        reset -= System.currentTimeMillis() / 1000;
+      }
+      return Optional.of(Duration.ofSeconds(Math.max(0, reset)));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+}
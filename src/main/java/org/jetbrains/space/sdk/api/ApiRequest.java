@@ -3,9 +3,11 @@ package org.jetbrains.space.sdk.api;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 public interface ApiRequest<T> {
 
@@ -91,6 +93,18 @@ public interface ApiRequest<T> {
    */
   @NotNull ApiRequest<T> addRecursiveField(@NotNull String fieldName, String... fieldNames);
 
+  /**
+   * Limit the time the request may take, including all its retries and, for batch requests, all its pages.
+   * When a batch request is iterated lazily, the limit applies to every page instead, as the consumer sets the pace.
+   *
+   * Once the time is up, the request fails with an {@link java.net.http.HttpTimeoutException}, and a retry that
+   * couldn't start in time isn't attempted. Defaults to the timeout of the {@link RetryPolicy} of the service.
+   *
+   * @param timeout the time limit of every execution of the request.
+   * @return this request, following builder pattern.
+   */
+  @NotNull ApiRequest<T> setTimeout(@NotNull Duration timeout);
+
   /**
    * Execute the request and return the result.
    *
@@ -102,4 +116,14 @@ public interface ApiRequest<T> {
    * @throws InterruptedException if interrupted.
    */
   @NotNull T execute() throws IOException, InterruptedException;
+
+  /**
+   * Execute the request asynchronously.
+   *
+   * The parameters and fields of the request are captured when this method is called, so you may modify the request
+   * and execute it again right away. No thread is blocked while waiting for the network or between the retries.
+   *
+   * @return the future request result. Completes exceptionally with an IOException on network problems.
+   */
+  @NotNull CompletableFuture<T> executeAsync();
 }
@@ -1,53 +1,96 @@
 package org.jetbrains.space.sdk.api;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.space.sdk.datatype.BatchResponse;
 import org.jetbrains.space.sdk.datatype.DatatypeStructureDiscovery;
+import org.jetbrains.space.sdk.datatype.SpaceObject;
+import org.jetbrains.space.sdk.metrics.EndpointTemplate;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-class BatchApiRequest<T> implements ApiRequest<List<T>> {
+class BatchApiRequest<T> implements BatchRequest<T> {
 
   private final static int CHUNK_SIZE = 20;
 
   protected @Nullable String multiparameterKey = null;
   protected @Nullable List<String> multiparameterValues = null;
 
+  protected int pagesInFlight = 1;
+  protected int chunkParallelism = 1;
+
+  protected final @NotNull SpaceService spaceService;
   protected final @NotNull ObjectApiRequest<BatchResponse<T>> request;
+  protected final @NotNull TypeAdapter<List<T>> dataAdapter;
+  /**
+   * The endpoint template, as reported to the metrics.
+   */
+  protected final @NotNull String template;
 
   BatchApiRequest(@NotNull SpaceService spaceService, @NotNull String api, @NotNull String method,
                   @NotNull Type elementType) {
-    Type batchType = TypeToken.getParameterized(BatchResponse.class, elementType).getType();
-    request = new ObjectApiRequest<>(spaceService, api, method, batchType,
-            BatchResponse.structure(DatatypeStructureDiscovery.structure(elementType)));
+    this(spaceService, new ObjectApiRequest<>(spaceService, api, method, batchType(elementType),
+            BatchResponse.structure(DatatypeStructureDiscovery.structure(elementType))), elementType,
+            EndpointTemplate.of(api));
+  }
+
+  private BatchApiRequest(@NotNull SpaceService spaceService, @NotNull ObjectApiRequest<BatchResponse<T>> request,
+                          @NotNull Type elementType, @NotNull String template) {
+    this.spaceService = spaceService;
+    this.request = request;
+    @SuppressWarnings("unchecked")
+    var dataAdapter = (TypeAdapter<List<T>>) SpaceService.GSON.getAdapter(
+            TypeToken.getParameterized(List.class, elementType));
+    this.dataAdapter = dataAdapter;
+    this.template = template;
+  }
+
+  private static @NotNull Type batchType(@NotNull Type elementType) {
+    return TypeToken.getParameterized(BatchResponse.class, elementType).getType();
   }
 
   @Override
-  public @NotNull ApiRequest<List<T>> addParameter(@NotNull String key, @NotNull Object value) {
+  public @NotNull BatchRequest<T> addParameter(@NotNull String key, @NotNull Object value) {
     request.addParameter(key, value);
     return this;
   }
 
   @Override
-  public @NotNull ApiRequest<List<T>> addField(@NotNull String fieldName, @NotNull String... fieldNames) {
-    request.addField("data", concatStrings(fieldName, fieldNames));
+  public @NotNull BatchRequest<T> addField(@NotNull String fieldName, @NotNull String... fieldNames) {
+    request.addNestedField("data", false, fieldName, fieldNames);
     return this;
   }
 
   @Override
-  public @NotNull ApiRequest<List<T>> addRecursiveField(@NotNull String fieldName, @NotNull String... fieldNames) {
-    request.addRecursiveField("data", concatStrings(fieldName, fieldNames));
+  public @NotNull BatchRequest<T> addRecursiveField(@NotNull String fieldName, @NotNull String... fieldNames) {
+    request.addNestedField("data", true, fieldName, fieldNames);
     return this;
   }
 
   @Override
-  public @NotNull ApiRequest<List<T>> addParameterList(@NotNull String key, @NotNull Collection<String> values) {
+  public @NotNull BatchRequest<T> addParameterList(@NotNull String key, @NotNull Collection<String> values) {
     if (multiparameterKey != null) {
       throw new IllegalStateException("only one multi-value parameter can be supplied");
     }
@@ -56,46 +99,338 @@ class BatchApiRequest<T> implements ApiRequest<List<T>> {
     return this;
   }
 
-  private @NotNull List<T> doExecute() throws IOException, InterruptedException {
-    BatchResponse<T> batchResponse = request.execute();
-    var res = new ArrayList<>(batchResponse.data);
-    String next = "!" + batchResponse.next;
-    while (!next.equals(batchResponse.next) && res.size() != batchResponse.totalCount) {
-      next = batchResponse.next;
-      request.doAddParameter("$skip", next);
-      batchResponse = request.execute();
-      res.addAll(batchResponse.data);
+  @Override
+  public @NotNull BatchRequest<T> setTimeout(@NotNull Duration timeout) {
+    request.setTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public @NotNull BatchRequest<T> setPagesInFlight(int pages) {
+    if (pages < 1) {
+      throw new IllegalArgumentException("at least one page must be allowed in flight");
     }
-    request.doRemoveParameter("$skip");
+    pagesInFlight = pages;
+    return this;
+  }
+
+  @Override
+  public @NotNull BatchRequest<T> setChunkParallelism(int chunks) {
+    if (chunks < 1) {
+      throw new IllegalArgumentException("at least one chunk must be allowed in progress");
+    }
+    chunkParallelism = chunks;
+    return this;
+  }
+
+  @Override
+  public <P> @NotNull BatchRequest<P> projectTo(@NotNull Class<P> projection) {
+    if (!SpaceObject.class.isAssignableFrom(projection)) {
+      throw new IllegalArgumentException(projection.getName() + " is not a SpaceObject, its fields can't be projected");
+    }
+    ObjectApiRequest<BatchResponse<P>> projected = request.withType(batchType(projection));
+    projected.addProjectedField("data", DatatypeStructureDiscovery.structure(projection));
+    var res = new BatchApiRequest<P>(spaceService, projected, projection, template);
+    res.multiparameterKey = multiparameterKey;
+    res.multiparameterValues = multiparameterValues;
+    res.pagesInFlight = pagesInFlight;
+    res.chunkParallelism = chunkParallelism;
+    return res;
+  }
+
+  private @NotNull CompletableFuture<List<T>> executeChunkAsync(@NotNull Map<String, Object> parameters,
+                                                                int pagesInFlight, @NotNull Deadline deadline) {
+    var queries = new ChunkQueries();
+    CompletableFuture<List<T>> res;
+    if (pagesInFlight == 1) {
+      res = collectPages(new PageCursor<>(page -> queries.track(() -> fetchPage(page, deadline)), List.of(parameters)),
+              new ArrayList<>());
+    } else {
+      var first = requestPipelined(parameters, null, List.of(), pagesInFlight, deadline, queries);
+      res = collectPipelined(parameters, first, new ArrayList<>(), pagesInFlight, deadline, queries);
+    }
+    return queries.cancelledWith(res);
+  }
+
+  /**
+   * The page queries of a chunk in flight. The chunk result only depends on them, so cancelling it doesn't abort
+   * them: they are cancelled explicitly instead.
+   */
+  private static class ChunkQueries {
+    private final @NotNull Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param query starts a page query, unless the chunk has been cancelled.
+     * @return the future page.
+     */
+    private <P> @NotNull CompletableFuture<P> track(@NotNull Supplier<CompletableFuture<P>> query) {
+      if (cancelled) {
+        return CompletableFuture.failedFuture(new CancellationException());
+      }
+      CompletableFuture<P> res = query.get();
+      inFlight.add(res);
+      res.whenComplete((ignored, error) -> inFlight.remove(res));
+      if (cancelled) {
+        // cancelled while starting
+        res.cancel(true);
+      }
+      return res;
+    }
+
+    /**
+     * Abort the queries in flight when the chunk result is cancelled.
+     */
+    private <C> @NotNull CompletableFuture<C> cancelledWith(@NotNull CompletableFuture<C> chunk) {
+      chunk.whenComplete((ignored, error) -> {
+        if (error instanceof CancellationException) {
+          cancelled = true;
+          for (var query : inFlight) {
+            query.cancel(true);
+          }
+        }
+      });
+      return chunk;
+    }
+  }
+
+  /**
+   * @param deadline the deadline of the page, null to start a new one, as when the pages are fetched lazily.
+   */
+  private @NotNull CompletableFuture<BatchResponse<T>> fetchPage(@NotNull Map<String, Object> parameters,
+                                                                 @Nullable Deadline deadline) {
+    var res = request.executeAsync(parameters, deadline != null ? deadline : request.newDeadline());
+    // on the side, so that the caller gets the query itself and can abort it
+    res.thenAccept(batchResponse -> spaceService.metrics().onPage(template, batchResponse.data.size()));
     return res;
   }
 
+  private @NotNull CompletableFuture<List<T>> collectPages(@NotNull PageCursor<T> cursor, @NotNull List<T> res) {
+    return cursor.next().thenCompose(batchResponse -> {
+      if (batchResponse == null) {
+        return CompletableFuture.completedFuture(res);
+      }
+      res.addAll(batchResponse.data);
+      return collectPages(cursor, res);
+    });
+  }
+
+  private static @NotNull Map<String, Object> withSkip(@NotNull Map<String, Object> parameters, @Nullable String skip) {
+    if (skip == null) {
+      return parameters;
+    }
+    var pageParameters = new HashMap<>(parameters);
+    pageParameters.put("$skip", skip);
+    return pageParameters;
+  }
+
+  /**
+   * A page requested in the pipelined mode, together with the page that follows it.
+   */
+  private class PipelinedPage {
+    private final @Nullable String skip;
+    /**
+     * Completes with the query of the page as soon as it is sent.
+     */
+    private final @NotNull CompletableFuture<CompletableFuture<BatchResponse<T>>> query;
+    private final @NotNull CompletableFuture<BatchResponse<T>> page;
+    /**
+     * Completes with the following page as soon as it is requested, or with null if the header of this page
+     * suggests that it's the last one.
+     */
+    private final @NotNull CompletableFuture<PipelinedPage> following;
+
+    private PipelinedPage(@Nullable String skip, @NotNull CompletableFuture<CompletableFuture<BatchResponse<T>>> query,
+                          @NotNull CompletableFuture<BatchResponse<T>> page,
+                          @NotNull CompletableFuture<PipelinedPage> following) {
+      this.skip = skip;
+      this.query = query;
+      this.page = page;
+      this.following = following;
+    }
+
+    /**
+     * Cancel this page and the pages that follow it, whether they have been sent already or not.
+     */
+    private void cancel() {
+      // the page only depends on the query, cancelling it wouldn't abort the exchange
+      query.cancel(true);
+      query.thenAccept(sent -> sent.cancel(true));
+      cancelFollowing();
+    }
+
+    private void cancelFollowing() {
+      following.thenAccept(next -> {
+        if (next != null) {
+          next.cancel();
+        }
+      });
+    }
+  }
+
+  /**
+   * Request a page, and then request the following page as soon as the header of this one is decoded.
+   * <p>
+   * A page is requested only when at most (pagesInFlight - 1) previous pages are still being received or decoded.
+   * The following page is requested speculatively: if the data of this page turns out to complete the list,
+   * the following page is cancelled when the pages are collected.
+   *
+   * @param skip     the "$skip" parameter of the page, null for the first page.
+   * @param previous the most recent previously requested pages.
+   */
+  private @NotNull PipelinedPage requestPipelined(@NotNull Map<String, Object> parameters, @Nullable String skip,
+                                                  @NotNull List<CompletableFuture<BatchResponse<T>>> previous,
+                                                  int pagesInFlight, @NotNull Deadline deadline,
+                                                  @NotNull ChunkQueries queries) {
+    CompletableFuture<?> slot = previous.size() < pagesInFlight
+            ? CompletableFuture.completedFuture(null)
+            : previous.get(previous.size() - pagesInFlight);
+    var header = new CompletableFuture<BatchResponse<T>>();
+    CompletableFuture<CompletableFuture<BatchResponse<T>>> query = slot.thenApply(ignored -> queries.track(() ->
+            request.executeAsync(withSkip(parameters, skip), new BatchPageDecoder<>(dataAdapter, header::complete),
+                    deadline)));
+    CompletableFuture<BatchResponse<T>> page = query.thenCompose(Function.identity());
+    // the header might have been sent after the data
+    page.whenComplete((batchResponse, error) -> {
+      if (error != null) {
+        header.completeExceptionally(error);
+      } else {
+        header.complete(batchResponse);
+      }
+    });
+
+    var window = new ArrayList<>(previous.subList(Math.max(0, previous.size() - pagesInFlight + 1), previous.size()));
+    window.add(page);
+    CompletableFuture<PipelinedPage> following = header.thenApply(batchHeader -> looksLast(batchHeader, skip)
+            ? null : requestPipelined(parameters, batchHeader.next, window, pagesInFlight, deadline, queries));
+    return new PipelinedPage(skip, query, page, following);
+  }
+
+  /**
+   * Does the page header alone suggest that there are no more pages?
+   * The "next" field is opaque, but in practice it's the offset of the following page.
+   */
+  private static boolean looksLast(@NotNull BatchResponse<?> header, @Nullable String skip) {
+    if (header.next.equals(skip)) {
+      return true;
+    }
+    try {
+      return Long.parseLong(header.next) >= header.totalCount;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Collect the pipelined pages in order. Stops under exactly the same conditions as the serial mode.
+   */
+  private @NotNull CompletableFuture<List<T>> collectPipelined(@NotNull Map<String, Object> parameters,
+                                                               @NotNull PipelinedPage pipelinedPage,
+                                                               @NotNull List<T> res, int pagesInFlight,
+                                                               @NotNull Deadline deadline,
+                                                               @NotNull ChunkQueries queries) {
+    return pipelinedPage.page.whenComplete((ignored, error) -> {
+      if (error != null) {
+        pipelinedPage.cancelFollowing();
+      }
+    }).thenCompose(batchResponse -> {
+      spaceService.metrics().onPage(template, batchResponse.data.size());
+      res.addAll(batchResponse.data);
+      if (batchResponse.next.equals(pipelinedPage.skip) || res.size() == batchResponse.totalCount) {
+        pipelinedPage.cancelFollowing();
+        return CompletableFuture.completedFuture(res);
+      }
+      return pipelinedPage.following.thenCompose(following -> {
+        if (following == null || !batchResponse.next.equals(following.skip)) {
+          // the header was misleading, fall back to requesting the following page now
+          if (following != null) {
+            following.cancel();
+          }
+          following = requestPipelined(parameters, batchResponse.next, List.of(), pagesInFlight, deadline, queries);
+        }
+        return collectPipelined(parameters, following, res, pagesInFlight, deadline, queries);
+      });
+    });
+  }
+
   @Override
   public @NotNull List<T> execute() throws IOException, InterruptedException {
-    if (multiparameterKey == null || multiparameterValues == null) {
-      return doExecute();
+    return SpaceService.await(executeAsync());
+  }
+
+  @Override
+  public @NotNull CompletableFuture<List<T>> executeAsync() {
+    final int pagesInFlight = this.pagesInFlight;
+    final Deadline deadline = request.newDeadline();
+    var chunks = new ArrayList<Supplier<CompletableFuture<List<T>>>>();
+    for (Map<String, Object> chunk : chunkParameters()) {
+      chunks.add(() -> executeChunkAsync(chunk, pagesInFlight, deadline));
     }
 
-    var res = new ArrayList<T>();
+    CompletableFuture<List<List<T>>> running = BoundedExecution.run(chunks, chunkParallelism);
+    CompletableFuture<List<T>> res = running.thenApply(chunkResults -> {
+      var concatenated = new ArrayList<T>();
+      for (List<T> chunkResult : chunkResults) {
+        concatenated.addAll(chunkResult);
+      }
+      return concatenated;
+    });
+    res.whenComplete((ignored, error) -> {
+      if (error instanceof CancellationException) {
+        running.cancel(true);
+      }
+    });
+    return res;
+  }
+
+  /**
+   * @return the current request parameters for every chunk of the multi-value parameter,
+   * or for the whole request if there is none.
+   */
+  private @NotNull List<Map<String, Object>> chunkParameters() {
+    final Map<String, Object> parameters = request.snapshotParameters();
+    final String key = multiparameterKey;
+    final List<String> values = multiparameterValues;
+    if (key == null || values == null) {
+      return List.of(parameters);
+    }
 
     // https://kotlinlang.org/api/latest/jvm/stdlib/kotlin.collections/chunked.html :((
 
-    int chunkCount = (multiparameterValues.size() - 1) / CHUNK_SIZE + 1;
+    int chunkCount = (values.size() - 1) / CHUNK_SIZE + 1;
 
+    var chunks = new ArrayList<Map<String, Object>>(chunkCount);
     for (int i = 0; i < chunkCount; i++) {
-      List<String> chunk = multiparameterValues.subList(CHUNK_SIZE * i,
-              Math.min(multiparameterValues.size(), CHUNK_SIZE * (i + 1)));
-      request.doAddParameter(multiparameterKey, chunk);
-      res.addAll(doExecute());
+      List<String> chunk = List.copyOf(values.subList(CHUNK_SIZE * i, Math.min(values.size(), CHUNK_SIZE * (i + 1))));
+      var chunkParameters = new HashMap<>(parameters);
+      chunkParameters.put(key, chunk);
+      chunks.add(chunkParameters);
     }
+    return chunks;
+  }
 
-    return res;
+  @Override
+  public @NotNull Iterator<T> iterator() {
+    return newIterator();
+  }
+
+  @Override
+  public @NotNull Stream<T> stream() {
+    var iterator = newIterator();
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(iterator::close);
+  }
+
+  @Override
+  public @NotNull Flow.Publisher<T> publisher() {
+    var chunks = chunkParameters();
+    return subscriber -> {
+      Objects.requireNonNull(subscriber);
+      subscriber.onSubscribe(new BatchSubscription<>(subscriber, new PageCursor<>(page -> fetchPage(page, null), chunks)));
+    };
   }
 
-  private @NotNull String[] concatStrings(String v, @NotNull String[] a) {
-    String[] fields = new String[a.length + 1];
-    fields[0] = v;
-    System.arraycopy(a, 0, fields, 1, a.length);
-    return fields;
+  private @NotNull BatchIterator<T> newIterator() {
+    return new BatchIterator<>(new PageCursor<>(page -> fetchPage(page, null), chunkParameters()), pagesInFlight > 1);
   }
 }
@@ -0,0 +1,100 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Iterates over the elements of a batched request, requesting the pages as the consumer advances.
+ * <p>
+ * Only the current page is kept in memory, plus the following page if prefetching is enabled.
+ * Network problems are rethrown as {@link UncheckedIOException}.
+ *
+ * @param <T> the list element type.
+ */
+class BatchIterator<T> implements Iterator<T>, AutoCloseable {
+
+  private final @NotNull PageCursor<T> cursor;
+  private final boolean prefetch;
+
+  private @NotNull Iterator<T> current = Collections.emptyIterator();
+  private @Nullable CompletableFuture<BatchResponse<T>> pending = null;
+  private boolean closed = false;
+
+  /**
+   * @param cursor   the pages to iterate over.
+   * @param prefetch whether to request the following page as soon as the consumer starts on the current one.
+   */
+  BatchIterator(@NotNull PageCursor<T> cursor, boolean prefetch) {
+    this.cursor = cursor;
+    this.prefetch = prefetch;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      if (closed) {
+        return false;
+      }
+      if (pending == null) {
+        if (cursor.isExhausted()) {
+          return false;
+        }
+        pending = cursor.next();
+      }
+      BatchResponse<T> page = awaitPending();
+      if (page == null) {
+        return false;
+      }
+      current = page.data.iterator();
+      if (prefetch && !cursor.isExhausted()) {
+        pending = cursor.next();
+      }
+    }
+    return true;
+  }
+
+  private @Nullable BatchResponse<T> awaitPending() {
+    CompletableFuture<BatchResponse<T>> page = pending;
+    pending = null;
+    try {
+      return SpaceService.await(page);
+    } catch (IOException e) {
+      close();
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      close();
+      Thread.currentThread().interrupt();
+      throw new UncheckedIOException(new InterruptedIOException("interrupted while waiting for a page"));
+    }
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /**
+   * Stop the iteration and cancel the page request in flight, if any.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    current = Collections.emptyIterator();
+    if (pending != null) {
+      pending.cancel(true);
+      pending = null;
+    }
+  }
+}
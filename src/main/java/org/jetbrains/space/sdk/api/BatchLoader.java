@@ -0,0 +1,145 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects individual lookups by key and loads them in batches.
+ *
+ * A batch is loaded when the window since its first lookup has passed, or as soon as it reaches the maximum size,
+ * whichever comes first. Lookups of the same key within a batch are loaded once.
+ * For example, {@link SpaceService#newProfileLoader()} resolves member IDs to profiles:
+ * {@code ids.stream().map(loader::load)} returns a future per ID, while the profiles are loaded together.
+ *
+ * @param <K> the key type, must have value semantics.
+ * @param <V> the loaded value type.
+ */
+public class BatchLoader<K, V> {
+
+  /**
+   * Loads a batch of values.
+   */
+  @FunctionalInterface
+  public interface BatchFunction<K, V> {
+    /**
+     * @param keys the distinct keys of the batch.
+     * @return the future values by key. Keys without a value are considered not found.
+     */
+    @NotNull CompletableFuture<Map<K, V>> load(@NotNull List<K> keys);
+  }
+
+  private final @NotNull BatchFunction<K, V> batchFunction;
+  private final @NotNull Duration window;
+  private final int maxBatchSize;
+  private final @NotNull Executor executor;
+
+  private @NotNull LinkedHashMap<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+  /**
+   * Identifies the pending batch, so that a scheduled load doesn't load a batch that has been loaded already.
+   */
+  private long batchNumber = 0;
+
+  /**
+   * @param batchFunction the function loading a batch of values.
+   * @param window how long to collect lookups after the first one, before loading them.
+   * @param maxBatchSize how many keys to collect at most, before loading them.
+   */
+  public BatchLoader(@NotNull BatchFunction<K, V> batchFunction, @NotNull Duration window, int maxBatchSize) {
+    this(batchFunction, window, maxBatchSize, ForkJoinPool.commonPool());
+  }
+
+  BatchLoader(@NotNull BatchFunction<K, V> batchFunction, @NotNull Duration window, int maxBatchSize,
+              @NotNull Executor executor) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("at least one key must be allowed in a batch");
+    }
+    if (window.isNegative()) {
+      throw new IllegalArgumentException("window can't be negative");
+    }
+    this.batchFunction = batchFunction;
+    this.window = window;
+    this.maxBatchSize = maxBatchSize;
+    this.executor = executor;
+  }
+
+  /**
+   * Look up a value as a part of the next batch.
+   *
+   * @return the future value. Completes exceptionally with {@link ObjectNotFoundException} if the batch contains
+   * no value for the key, or with the exception the batch failed with. Cancelling it doesn't affect other lookups.
+   */
+  public @NotNull CompletableFuture<V> load(@NotNull K key) {
+    CompletableFuture<V> res;
+    boolean full;
+    long number;
+    synchronized (this) {
+      var existing = pending.get(key);
+      if (existing != null) {
+        return existing.copy();
+      }
+      res = new CompletableFuture<>();
+      pending.put(key, res);
+      full = pending.size() >= maxBatchSize;
+      number = batchNumber;
+      if (pending.size() == 1 && !full) {
+        CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS, executor)
+                .execute(() -> dispatch(number));
+      }
+    }
+    if (full) {
+      dispatch(number);
+    }
+    return res.copy();
+  }
+
+  /**
+   * Load the pending lookups now, without waiting for the window to pass.
+   */
+  @SuppressWarnings("unused")
+  public void dispatch() {
+    long number;
+    synchronized (this) {
+      number = batchNumber;
+    }
+    dispatch(number);
+  }
+
+  private void dispatch(long number) {
+    Map<K, CompletableFuture<V>> batch;
+    synchronized (this) {
+      if (number != batchNumber || pending.isEmpty()) {
+        return;
+      }
+      batch = pending;
+      pending = new LinkedHashMap<>();
+      batchNumber++;
+    }
+
+    CompletableFuture<Map<K, V>> loaded;
+    try {
+      loaded = batchFunction.load(new ArrayList<>(batch.keySet()));
+    } catch (RuntimeException e) {
+      loaded = CompletableFuture.failedFuture(e);
+    }
+    loaded.whenComplete((values, error) -> {
+      for (var entry : batch.entrySet()) {
+        if (error != null) {
+          entry.getValue().completeExceptionally(SpaceService.unwrap(error));
+        } else if (values.containsKey(entry.getKey())) {
+          entry.getValue().complete(values.get(entry.getKey()));
+        } else {
+          entry.getValue().completeExceptionally(new ObjectNotFoundException());
+        }
+      }
+    });
+  }
+}
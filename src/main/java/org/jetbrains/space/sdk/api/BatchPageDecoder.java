@@ -0,0 +1,73 @@
+package org.jetbrains.space.sdk.api;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decodes a page of a batched response, reporting its header as soon as it is read.
+ * <p>
+ * Space sends the "next" and "totalCount" fields before the "data" array, so the following page can be
+ * requested while the data of the current one is still being received and decoded.
+ *
+ * @param <T> the list element type.
+ */
+class BatchPageDecoder<T> implements ResponseDecoder<BatchResponse<T>> {
+
+  private final @NotNull TypeAdapter<List<T>> dataAdapter;
+  private final @NotNull Consumer<BatchResponse<T>> onHeader;
+
+  /**
+   * @param dataAdapter the adapter for the "data" array.
+   * @param onHeader    receives the page header, i.e. a page with no data, before the data is decoded.
+   *                    Not invoked if the data comes before the header.
+   */
+  BatchPageDecoder(@NotNull TypeAdapter<List<T>> dataAdapter, @NotNull Consumer<BatchResponse<T>> onHeader) {
+    this.dataAdapter = dataAdapter;
+    this.onHeader = onHeader;
+  }
+
+  @Override
+  public @NotNull BatchResponse<T> decode(@NotNull JsonReader reader) throws IOException {
+    String next = null;
+    int totalCount = 0;
+    boolean totalCountRead = false;
+    List<T> data = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "next":
+          if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+          } else {
+            next = reader.nextString();
+          }
+          break;
+        case "totalCount":
+          totalCount = reader.nextInt();
+          totalCountRead = true;
+          break;
+        case "data":
+          if (next != null && totalCountRead) {
+            onHeader.accept(new BatchResponse<>(next, totalCount, List.of()));
+          }
+          data = dataAdapter.read(reader);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (next == null || data == null) {
+      throw new JsonSyntaxException("batch response without \"next\" or \"data\"");
+    }
+    return new BatchResponse<>(next, totalCount, data);
+  }
+}
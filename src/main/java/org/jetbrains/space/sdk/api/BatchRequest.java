@@ -0,0 +1,129 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * A request to a batched Space API endpoint. The resulting list is received page by page.
+ *
+ * @param <T> The list element type.
+ */
+public interface BatchRequest<T> extends ApiRequest<List<T>> {
+
+  @Override
+  @NotNull BatchRequest<T> addParameter(@NotNull String key, @NotNull Object value);
+
+  @Override
+  default @NotNull BatchRequest<T> addParameter(@NotNull String key, @NotNull LocalDate value) {
+    return addParameter(key, (Object) value.format(DateTimeFormatter.ISO_DATE));
+  }
+
+  @Override
+  @SuppressWarnings("unused")
+  default @NotNull BatchRequest<T> addParameter(@NotNull String key, boolean value) {
+    return addParameter(key, (Object) String.valueOf(value));
+  }
+
+  @Override
+  @NotNull BatchRequest<T> addParameterList(@NotNull String key, @NotNull Collection<String> values);
+
+  @Override
+  @NotNull BatchRequest<T> addField(@NotNull String fieldName, String... fieldNames);
+
+  @Override
+  @NotNull BatchRequest<T> addRecursiveField(@NotNull String fieldName, String... fieldNames);
+
+  @Override
+  @NotNull BatchRequest<T> setTimeout(@NotNull Duration timeout);
+
+  /**
+   * Receive only the fields of a projection, e.g. a class with the few fields of the list element type that are
+   * actually used, instead of all the immediate fields.
+   *
+   * The projection is a SpaceObject whose public fields are named as the fields of the element type. The fields
+   * of the projection are checked against the element type, and exactly these fields are requested, with no
+   * wildcard. The fields of SpaceObject types are projected in turn, e.g. a {@code TD_ProfileName name} field
+   * requests "name(firstName,lastName)", while the fields of other types are received as a whole. A field of
+   * the same projection as its parent, e.g. {@code List<MyView> managers} in {@code MyView}, is requested
+   * recursively, while a field referring back to a farther enclosing projection is received as by a wildcard,
+   * i.e. references with only their `id`. The list elements are decoded straight into the projection.
+   *
+   * The projected request gets the current parameters and settings of this one, but not its fields.
+   * Fields added to the projected request are received in addition to the projection.
+   *
+   * @param projection the projection type.
+   * @param <P>        the projection type.
+   * @return a new request, this one is not changed.
+   * @throws IllegalArgumentException if the projection doesn't match the element type.
+   */
+  <P> @NotNull BatchRequest<P> projectTo(@NotNull Class<P> projection);
+
+  /**
+   * Set the number of pages that can be in flight at the same time, i.e. requested or being parsed.
+   *
+   * With the default value of 1, the pages are processed strictly one after another: a page is requested,
+   * parsed, and only then the next one is requested. With larger values, the next page is requested as soon as
+   * the current one is received, while the current one is still being parsed. The result is the same either way.
+   *
+   * @param pages the maximum number of pages in flight, at least 1.
+   * @return this request, following builder pattern.
+   */
+  @NotNull BatchRequest<T> setPagesInFlight(int pages);
+
+  /**
+   * Set the number of chunks of a multi-value parameter that are executed at the same time.
+   *
+   * See {@link #addParameterList} for the details on chunking. The results are concatenated in the order
+   * of the chunks regardless of this setting. If one of the chunks fails, the rest are cancelled.
+   *
+   * @param chunks the maximum number of chunks in progress, at least 1. Defaults to 1.
+   * @return this request, following builder pattern.
+   */
+  @NotNull BatchRequest<T> setChunkParallelism(int chunks);
+
+  /**
+   * Iterate over the result lazily.
+   *
+   * Unlike {@link #execute}, the pages are requested one by one as the iterator advances, so only the current page
+   * is kept in memory, plus the following one if more than one page is allowed in flight
+   * (see {@link #setPagesInFlight}). The chunks of a multi-value parameter are requested one after another.
+   *
+   * The parameters and fields of the request are captured when this method is called.
+   * Network problems are rethrown as {@link java.io.UncheckedIOException}.
+   *
+   * @return the iterator over the list elements.
+   */
+  @NotNull Iterator<T> iterator();
+
+  /**
+   * Stream the result lazily, see {@link #iterator} for the details.
+   *
+   * Closing the stream cancels the page request in flight, if any, so it's advised to use the stream in a
+   * try-with-resources block when prefetching is enabled and the stream might be short-circuited.
+   *
+   * @return the sequential stream of the list elements.
+   */
+  @NotNull Stream<T> stream();
+
+  /**
+   * Publish the result to reactive subscribers.
+   *
+   * The pages are requested asynchronously as the subscriber signals demand, one page at a time, so the back-pressure
+   * reaches the network: no page is requested until the elements of the previous one have been requested.
+   * The chunks of a multi-value parameter are published one after another. No thread is blocked while waiting.
+   *
+   * The parameters and fields of the request are captured when this method is called. Every subscription
+   * executes the request anew.
+   *
+   * @return the publisher of the list elements.
+   */
+  @NotNull Flow.Publisher<T> publisher();
+}
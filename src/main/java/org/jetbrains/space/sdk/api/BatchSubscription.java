@@ -0,0 +1,128 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the elements of a batched request to a subscriber, requesting the pages as the subscriber demands.
+ * <p>
+ * A page is requested only when the previous one has been delivered and the subscriber still has unfulfilled demand.
+ * No thread waits for the pages: the elements are delivered either on the thread that calls {@link #request}
+ * or on the thread that completes the page.
+ *
+ * @param <T> the list element type.
+ */
+class BatchSubscription<T> implements Flow.Subscription {
+
+  private final @NotNull Flow.Subscriber<? super T> subscriber;
+  private final @NotNull PageCursor<T> cursor;
+
+  private final @NotNull AtomicLong requested = new AtomicLong();
+  /**
+   * The number of pending drain requests; only the thread that increments it from zero drains.
+   */
+  private final @NotNull AtomicInteger wip = new AtomicInteger();
+
+  private volatile @NotNull Iterator<T> current = Collections.emptyIterator();
+  private volatile @Nullable CompletableFuture<BatchResponse<T>> pending = null;
+  private volatile @Nullable Throwable failure = null;
+  /**
+   * The error of a non-positive request, signalled before any further element rather than after the current page.
+   */
+  private volatile @Nullable Throwable invalidRequest = null;
+  private volatile boolean exhausted = false;
+  private volatile boolean cancelled = false;
+
+  BatchSubscription(@NotNull Flow.Subscriber<? super T> subscriber, @NotNull PageCursor<T> cursor) {
+    this.subscriber = subscriber;
+    this.cursor = cursor;
+  }
+
+  @Override
+  public void request(long n) {
+    if (n <= 0) {
+      invalidRequest = new IllegalArgumentException("non-positive subscription request: " + n);
+    } else {
+      requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+    }
+    drain();
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+    CompletableFuture<BatchResponse<T>> page = pending;
+    if (page != null) {
+      page.cancel(true);
+    }
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      long demand = requested.get();
+      long emitted = 0;
+      Iterator<T> page = current;
+      while (emitted != demand && page.hasNext() && !cancelled && invalidRequest == null) {
+        subscriber.onNext(page.next());
+        emitted++;
+      }
+      if (emitted != 0 && demand != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+      if (cancelled) {
+        return;
+      }
+      Throwable invalid = invalidRequest;
+      if (invalid != null) {
+        cancel();
+        subscriber.onError(invalid);
+        return;
+      }
+      if (!page.hasNext() && pending == null) {
+        Throwable error = failure;
+        if (error != null) {
+          cancelled = true;
+          subscriber.onError(error);
+          return;
+        }
+        if (exhausted || cursor.isExhausted()) {
+          cancelled = true;
+          subscriber.onComplete();
+          return;
+        }
+        if (requested.get() > 0) {
+          requestPage();
+        }
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void requestPage() {
+    var page = cursor.next();
+    pending = page;
+    page.whenComplete((batchResponse, error) -> {
+      if (error != null) {
+        failure = SpaceService.unwrap(error);
+      } else if (batchResponse == null) {
+        exhausted = true;
+      } else {
+        current = batchResponse.data.iterator();
+      }
+      pending = null;
+      drain();
+    });
+  }
+}
@@ -0,0 +1,106 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous tasks with at most a given number of them in progress at the same time.
+ * <p>
+ * The results are collected in the order of the tasks, regardless of the order of completion.
+ * As soon as one of the tasks fails, the tasks in progress are cancelled, no new tasks are started,
+ * and the overall result fails with the same exception. Cancelling the overall result cancels the tasks as well.
+ * A task is cancelled through its future only, so the future of a task must abort the work in progress when it is
+ * cancelled, as opposed to a future that merely depends on the work.
+ *
+ * @param <R> the task result type.
+ */
+class BoundedExecution<R> {
+
+  private final @NotNull List<Supplier<CompletableFuture<R>>> tasks;
+  private final @NotNull AtomicReferenceArray<CompletableFuture<R>> started;
+  private final @NotNull AtomicInteger nextTask = new AtomicInteger();
+  private final @NotNull AtomicInteger remaining;
+  private final @NotNull CompletableFuture<List<R>> result = new CompletableFuture<>();
+
+  private BoundedExecution(@NotNull List<Supplier<CompletableFuture<R>>> tasks) {
+    this.tasks = tasks;
+    started = new AtomicReferenceArray<>(tasks.size());
+    remaining = new AtomicInteger(tasks.size());
+  }
+
+  /**
+   * @param tasks       the tasks, each one starts when its supplier is invoked.
+   * @param parallelism the maximum number of tasks in progress, at least 1.
+   * @return the future list of the task results, in the order of the tasks.
+   */
+  static <R> @NotNull CompletableFuture<List<R>> run(@NotNull List<Supplier<CompletableFuture<R>>> tasks,
+                                                     int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    if (tasks.isEmpty()) {
+      return CompletableFuture.completedFuture(new ArrayList<>());
+    }
+    var execution = new BoundedExecution<>(tasks);
+    execution.result.whenComplete((ignored, error) -> {
+      if (error != null) {
+        execution.cancelStarted();
+      }
+    });
+    for (int i = 0; i < Math.min(parallelism, tasks.size()); i++) {
+      execution.startNext();
+    }
+    return execution.result;
+  }
+
+  private void startNext() {
+    int index = nextTask.getAndIncrement();
+    if (index >= tasks.size() || result.isDone()) {
+      return;
+    }
+    CompletableFuture<R> task;
+    try {
+      task = tasks.get(index).get();
+    } catch (RuntimeException e) {
+      task = CompletableFuture.failedFuture(e);
+    }
+    started.set(index, task);
+    if (result.isDone()) {
+      // failed or cancelled while the task was starting
+      task.cancel(true);
+      return;
+    }
+    task.whenComplete((ignored, error) -> {
+      if (error != null) {
+        result.completeExceptionally(SpaceService.unwrap(error));
+      } else if (remaining.decrementAndGet() == 0) {
+        result.complete(collect());
+      } else {
+        startNext();
+      }
+    });
+  }
+
+  private @NotNull List<R> collect() {
+    var res = new ArrayList<R>(tasks.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      res.add(started.get(i).join());
+    }
+    return res;
+  }
+
+  private void cancelStarted() {
+    for (int i = 0; i < started.length(); i++) {
+      CompletableFuture<R> task = started.get(i);
+      if (task != null) {
+        task.cancel(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses the response bodies according to the "Content-Encoding" header.
+ */
+class ContentEncoding {
+
+  private ContentEncoding() {
+  }
+
+  /**
+   * The value of the "Accept-Encoding" header for the supported encodings.
+   */
+  static final String ACCEPTED = "gzip, deflate";
+
+  /**
+   * Wrap the body so that it's decompressed while being read. Might block reading the compression header.
+   *
+   * @param body     the response body as received.
+   * @param encoding the value of the "Content-Encoding" header, if any.
+   * @return the decompressed body.
+   * @throws IOException if the encoding isn't supported, or the compression header is malformed.
+   */
+  static @NotNull InputStream decompress(@NotNull InputStream body, @Nullable String encoding) throws IOException {
+    if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim())) {
+      return body;
+    }
+    switch (encoding.trim().toLowerCase()) {
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(body);
+      case "deflate":
+        return inflate(body);
+      default:
+        throw new IOException("unsupported content encoding " + encoding);
+    }
+  }
+
+  /**
+   * "deflate" is supposed to be zlib-wrapped, but some servers send raw deflate data, so check the zlib header.
+   */
+  private static @NotNull InputStream inflate(@NotNull InputStream body) throws IOException {
+    var buffered = new BufferedInputStream(body);
+    buffered.mark(2);
+    int cmf = buffered.read();
+    int flg = buffered.read();
+    buffered.reset();
+    boolean zlib = cmf != -1 && flg != -1 && (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    var inflater = new Inflater(!zlib);
+    return new InflaterInputStream(buffered, inflater) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // the inflater wasn't created by the stream, so the stream won't release it
+          inflater.end();
+        }
+      }
+    };
+  }
+}
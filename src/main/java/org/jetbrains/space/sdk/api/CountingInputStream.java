@@ -0,0 +1,55 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes read from the underlying stream.
+ */
+class CountingInputStream extends FilterInputStream {
+
+  private final @NotNull LongAdder counter;
+
+  /**
+   * @param in      the underlying stream.
+   * @param counter the counter to add the number of read bytes to.
+   */
+  CountingInputStream(@NotNull InputStream in, @NotNull LongAdder counter) {
+    super(in);
+    this.counter = counter;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b != -1) {
+      counter.increment();
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte @NotNull [] b, int off, int len) throws IOException {
+    int n = super.read(b, off, len);
+    if (n > 0) {
+      counter.add(n);
+    }
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    counter.add(skipped);
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+}
@@ -0,0 +1,46 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+/**
+ * The point in time by which a request, with all of its attempts and pages, must be over.
+ */
+final class Deadline {
+
+  static final @NotNull Deadline NONE = new Deadline(0, false);
+
+  /**
+   * In System.nanoTime() terms.
+   */
+  private final long nanos;
+  private final boolean set;
+
+  private Deadline(long nanos, boolean set) {
+    this.nanos = nanos;
+    this.set = set;
+  }
+
+  /**
+   * @param timeout the time from now, null for no deadline.
+   */
+  static @NotNull Deadline after(@Nullable Duration timeout) {
+    return timeout == null ? NONE : new Deadline(System.nanoTime() + timeout.toNanos(), true);
+  }
+
+  /**
+   * @return the time left, null if there is no deadline.
+   */
+  @Nullable Duration remaining() {
+    return set ? Duration.ofNanos(nanos - System.nanoTime()) : null;
+  }
+
+  /**
+   * @return whether there will be time left after the delay.
+   */
+  boolean allows(@NotNull Duration delay) {
+    return !set || nanos - System.nanoTime() > delay.toNanos();
+  }
+}
@@ -0,0 +1,287 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedges slow GET requests: if an attempt hasn't received the response headers within the usual latency
+ * of its endpoint, an identical attempt is sent, and the first successful response wins. The other attempt is
+ * cancelled.
+ *
+ * The usual latency is a quantile of the recently observed latencies of the endpoint template, e.g. the 95th
+ * percentile. Endpoints aren't hedged until enough latencies have been observed. The hedges are limited
+ * to a fraction of the requests, so that a slow server doesn't get twice the load. Hedges bypass the request rate
+ * limiter, so the fraction should be small. Only GET requests are hedged, as they are idempotent.
+ *
+ * Set with {@link SpaceService.Builder#setHedgingPolicy}. The observed latencies are kept by the policy,
+ * so a policy should only be used by a single service.
+ */
+public class HedgingPolicy {
+
+    /**
+     * The number of latencies of an endpoint to observe before hedging its requests.
+     */
+    private static final int MIN_SAMPLES = 50;
+    /**
+     * The number of latencies after which the observation starts anew, so that the threshold follows the server.
+     */
+    private static final int WINDOW = 1000;
+    /**
+     * The maximum number of hedges saved up, i.e. the largest burst of hedges.
+     */
+    private static final double MAX_CREDITS = 10;
+
+    private final double quantile;
+    private final double maxHedgeRate;
+    private @NotNull Duration minDelay = Duration.ofMillis(10);
+
+    private final @NotNull ConcurrentHashMap<String, EndpointLatency> latencies = new ConcurrentHashMap<>();
+    /**
+     * Every request earns a fraction of a hedge, every hedge spends one.
+     */
+    private double credits = 0;
+    private final @NotNull LongAdder hedges = new LongAdder();
+    private final @NotNull LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * @param quantile the latency quantile after which a request is hedged, e.g. 0.95.
+     * @param maxHedgeRate the maximum fraction of the requests to hedge, e.g. 0.05.
+     */
+    public HedgingPolicy(double quantile, double maxHedgeRate) {
+        if (quantile <= 0 || quantile >= 1) {
+            throw new IllegalArgumentException("the quantile must be between 0 and 1");
+        }
+        if (maxHedgeRate < 0 || maxHedgeRate > 1) {
+            throw new IllegalArgumentException("the hedge rate must be between 0 and 1");
+        }
+        this.quantile = quantile;
+        this.maxHedgeRate = maxHedgeRate;
+    }
+
+    /**
+     * @param minDelay the minimum time to wait before hedging, whatever the observed latency. 10 ms by default.
+     */
+    public @NotNull HedgingPolicy setMinDelay(@NotNull Duration minDelay) {
+        this.minDelay = minDelay;
+        return this;
+    }
+
+    /**
+     * @return the number of hedges sent.
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return the number of hedges that received a successful response before the original attempt.
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Send the request, and hedge it if it is slow.
+     *
+     * @param template the endpoint template, the latencies are observed by template.
+     * @param executor the executor to schedule the hedge on.
+     * @return the future winning response.
+     */
+    @NotNull CompletableFuture<SpaceTransport.Response> send(@NotNull SpaceTransport transport,
+                                                             @NotNull SpaceTransport.Request request,
+                                                             @NotNull String template, @NotNull Executor executor) {
+        synchronized (this) {
+            credits = Math.min(MAX_CREDITS, credits + maxHedgeRate);
+        }
+        var latency = latencies.computeIfAbsent(template, ignored -> new EndpointLatency());
+        var race = new Race(latency);
+        race.add(transport.send(request), false);
+        Duration delay = latency.threshold();
+        if (delay != null) {
+            CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor).execute(() -> {
+                if (!race.isDecided() && tryHedge()) {
+                    hedges.increment();
+                    race.add(transport.send(request), true);
+                }
+            });
+        }
+        return race.result;
+    }
+
+    private synchronized boolean tryHedge() {
+        if (credits < 1) {
+            return false;
+        }
+        credits -= 1;
+        return true;
+    }
+
+    /**
+     * The recently observed latencies of an endpoint template.
+     */
+    private class EndpointLatency {
+        private volatile @NotNull LatencyHistogram current = new LatencyHistogram();
+        private volatile @Nullable LatencyHistogram previous = null;
+
+        private void record(long nanos) {
+            var histogram = current;
+            histogram.record(nanos);
+            if (histogram.getCount() >= WINDOW) {
+                synchronized (this) {
+                    if (current == histogram) {
+                        previous = histogram;
+                        current = new LatencyHistogram();
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return how long to wait before hedging, null if not enough latencies have been observed yet.
+         */
+        private @Nullable Duration threshold() {
+            var histogram = current;
+            if (histogram.getCount() < MIN_SAMPLES) {
+                histogram = previous;
+                if (histogram == null) {
+                    return null;
+                }
+            }
+            Duration res = histogram.getQuantile(quantile);
+            return res.compareTo(minDelay) < 0 ? minDelay : res;
+        }
+    }
+
+    /**
+     * The attempts of a single request, racing for the first successful response.
+     */
+    private class Race {
+        private final @NotNull CompletableFuture<SpaceTransport.Response> result = new CompletableFuture<>();
+        private final @NotNull EndpointLatency latency;
+        private final @NotNull List<CompletableFuture<SpaceTransport.Response>> attempts = new ArrayList<>(2);
+        private int pending = 0;
+        /**
+         * Whether the outcome is known, the other attempts are discarded then.
+         */
+        private boolean decided = false;
+        /**
+         * The outcome of the first unsuccessful attempt, returned if no attempt succeeds.
+         */
+        private @Nullable SpaceTransport.Response fallbackResponse = null;
+        private @Nullable Throwable fallbackError = null;
+
+        private Race(@NotNull EndpointLatency latency) {
+            this.latency = latency;
+            // the result might be failed from outside, e.g. by a timeout, then the attempts are abandoned
+            result.whenComplete((response, error) -> {
+                if (error != null) {
+                    abandon();
+                }
+            });
+        }
+
+        private void abandon() {
+            List<CompletableFuture<SpaceTransport.Response>> abandoned;
+            synchronized (this) {
+                decided = true;
+                abandoned = new ArrayList<>(attempts);
+            }
+            for (var attempt : abandoned) {
+                attempt.cancel(true);
+            }
+        }
+
+        private synchronized boolean isDecided() {
+            return decided;
+        }
+
+        private void add(@NotNull CompletableFuture<SpaceTransport.Response> attempt, boolean hedge) {
+            synchronized (this) {
+                if (!decided) {
+                    attempts.add(attempt);
+                    pending++;
+                } else {
+                    attempt.cancel(true);
+                    return;
+                }
+            }
+            long start = System.nanoTime();
+            attempt.whenComplete((response, error) -> complete(attempt, hedge, start, response, error));
+        }
+
+        private void complete(@NotNull CompletableFuture<SpaceTransport.Response> attempt, boolean hedge, long start,
+                              @Nullable SpaceTransport.Response response, @Nullable Throwable error) {
+            if (error != null && SpaceService.unwrap(error) instanceof CancellationException) {
+                // the attempt has lost
+                return;
+            }
+            if (response != null) {
+                latency.record(System.nanoTime() - start);
+            }
+            boolean success = response != null && response.getStatusCode() == 200;
+            var losers = new ArrayList<CompletableFuture<SpaceTransport.Response>>();
+            SpaceTransport.Response unused = null;
+            boolean finished = false;
+            synchronized (this) {
+                pending--;
+                if (decided) {
+                    unused = response;
+                } else if (success) {
+                    for (var other : attempts) {
+                        if (other != attempt) {
+                            losers.add(other);
+                        }
+                    }
+                    // the earlier unsuccessful response isn't returned anymore
+                    unused = fallbackResponse;
+                    fallbackResponse = null;
+                    fallbackError = null;
+                    decided = true;
+                    finished = true;
+                } else {
+                    if (fallbackResponse == null && fallbackError == null) {
+                        fallbackResponse = response;
+                        fallbackError = error;
+                    } else {
+                        unused = response;
+                    }
+                    // unless another attempt might still succeed
+                    if (pending == 0) {
+                        response = fallbackResponse;
+                        error = fallbackError;
+                        decided = true;
+                        finished = true;
+                    }
+                }
+            }
+            if (unused != null) {
+                SpaceService.discard(unused.getBody());
+            }
+            for (var loser : losers) {
+                loser.cancel(true);
+            }
+            if (success && hedge) {
+                hedgeWins.increment();
+            }
+            if (!finished) {
+                return;
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (!result.complete(response)) {
+                SpaceService.discard(response.getBody());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical concurrent requests share a single query and its decoded result.
+ *
+ * Every caller gets its own future, so cancelling it doesn't affect the other callers.
+ * The shared query is cancelled only when all of its callers have cancelled.
+ */
+class InFlightRequests {
+
+    private final @NotNull ConcurrentHashMap<Object, Shared<?>> inFlight = new ConcurrentHashMap<>();
+    private final @NotNull LongAdder requests = new LongAdder();
+    private final @NotNull LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param key identifies identical requests, must have value semantics.
+     * @param query starts the query, invoked only if there is no identical query in flight.
+     * @return the future result of the shared query.
+     */
+    <R> @NotNull CompletableFuture<R> join(@NotNull Object key, @NotNull Supplier<CompletableFuture<R>> query) {
+        requests.increment();
+        while (true) {
+            var existing = inFlight.get(key);
+            if (existing != null) {
+                @SuppressWarnings("unchecked")
+                var shared = (Shared<R>) existing;
+                var res = shared.follow();
+                if (res != null) {
+                    coalesced.increment();
+                    return res;
+                }
+                // all callers of the existing query have just cancelled, start a new one
+                inFlight.remove(key, existing);
+                continue;
+            }
+            var shared = new Shared<R>(key);
+            if (inFlight.putIfAbsent(key, shared) == null) {
+                var res = shared.follow();
+                CompletableFuture<R> started;
+                try {
+                    started = query.get();
+                } catch (RuntimeException e) {
+                    started = CompletableFuture.failedFuture(e);
+                }
+                shared.start(started);
+                return res;
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests that might have been coalesced.
+     */
+    long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of requests that shared a query with an identical earlier request.
+     */
+    long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    private class Shared<R> {
+        private final @NotNull Object key;
+        private final @NotNull CompletableFuture<R> result = new CompletableFuture<>();
+        private @Nullable CompletableFuture<R> upstream = null;
+        private int callers = 0;
+        private boolean cancelled = false;
+
+        private Shared(@NotNull Object key) {
+            this.key = key;
+        }
+
+        private void start(@NotNull CompletableFuture<R> query) {
+            synchronized (this) {
+                upstream = query;
+                if (cancelled) {
+                    query.cancel(true);
+                    return;
+                }
+            }
+            query.whenComplete((value, error) -> {
+                inFlight.remove(key, this);
+                if (error != null) {
+                    result.completeExceptionally(SpaceService.unwrap(error));
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        /**
+         * @return a future for a new caller, or null if the query has been cancelled.
+         */
+        private synchronized @Nullable CompletableFuture<R> follow() {
+            if (cancelled) {
+                return null;
+            }
+            callers++;
+            var res = result.copy();
+            res.whenComplete((value, error) -> {
+                if (error instanceof CancellationException) {
+                    leave();
+                }
+            });
+            return res;
+        }
+
+        private void leave() {
+            CompletableFuture<R> query;
+            synchronized (this) {
+                if (--callers > 0 || result.isDone()) {
+                    return;
+                }
+                cancelled = true;
+                query = upstream;
+            }
+            inFlight.remove(key, this);
+            result.cancel(true);
+            if (query != null) {
+                query.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The default transport, based on the JDK HTTP client.
+ */
+class JdkTransport implements SpaceTransport {
+
+    private final @NotNull HttpClient httpClient;
+    private final @Nullable Duration requestTimeout;
+
+    /**
+     * @param requestTimeout how long to wait for the response headers, null to wait indefinitely.
+     */
+    JdkTransport(@NotNull HttpClient httpClient, @Nullable Duration requestTimeout) {
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Response> send(@NotNull Request request) {
+        byte[] body = request.getBody();
+        var builder = HttpRequest.newBuilder(request.getUri()).method(request.getMethod(), body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(body));
+        request.getHeaders().forEach(builder::setHeader);
+        if (requestTimeout != null) {
+            builder.timeout(requestTimeout);
+        }
+        var sent = httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<Response> res = sent.thenApply(JdkResponse::new);
+        // a dependent future doesn't cancel its source, abort the exchange and release the connection explicitly
+        // when the response is cancelled or times out
+        res.whenComplete((ignored, error) -> {
+            if (error != null && !sent.isCompletedExceptionally()) {
+                sent.cancel(true);
+                sent.thenAccept(response -> {
+                    try {
+                        response.body().close();
+                    } catch (IOException e) {
+                        // nothing to release then
+                    }
+                });
+            }
+        });
+        return res;
+    }
+
+    private static class JdkResponse implements Response {
+        private final @NotNull HttpResponse<InputStream> response;
+
+        private JdkResponse(@NotNull HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public @NotNull HttpHeaders getHeaders() {
+            return response.headers();
+        }
+
+        @Override
+        public @NotNull InputStream getBody() {
+            return response.body();
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package org.jetbrains.space.sdk.api;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.fields.CompiledFieldSpecs;
 import org.jetbrains.space.sdk.fields.DatatypeStructure;
 import org.jetbrains.space.sdk.fields.FieldSpecs;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 class ObjectApiRequest<T> implements ApiRequest<T> {
 
@@ -17,7 +21,13 @@ class ObjectApiRequest<T> implements ApiRequest<T> {
   private final @NotNull String method;
   private final @NotNull Type type;
   private final @NotNull Map<String, Object> parameterMap;
+  private final @NotNull DatatypeStructure structure;
   private final @NotNull FieldSpecs specs;
+  /**
+   * The current field specifications, compiled once for all executions until a field is added.
+   */
+  private @Nullable CompiledFieldSpecs compiledSpecs = null;
+  private @Nullable Duration timeout = null;
 
   ObjectApiRequest(@NotNull SpaceService spaceService, @NotNull String endpoint, @NotNull String method,
                    @NotNull Type type, @NotNull DatatypeStructure structure) {
@@ -27,6 +37,7 @@ class ObjectApiRequest<T> implements ApiRequest<T> {
     this.type = type;
 
     parameterMap = new HashMap<>();
+    this.structure = structure;
     specs = new FieldSpecs(true, new HashMap<>(), structure);
   }
 
@@ -44,30 +55,109 @@ class ObjectApiRequest<T> implements ApiRequest<T> {
     return this;
   }
 
-  protected void doRemoveParameter(@NotNull String key) {
-    parameterMap.remove(key);
-  }
-
   @Override
   public @NotNull ApiRequest<T> addField(@NotNull String fieldName, String... fieldNames) {
     specs.addField(fieldName, fieldNames);
+    compiledSpecs = null;
     return this;
   }
 
   @Override
   public @NotNull ApiRequest<T> addRecursiveField(@NotNull String fieldName, String... fieldNames) {
     specs.addRecursiveField(fieldName, fieldNames);
+    compiledSpecs = null;
+    return this;
+  }
+
+  /**
+   * Add a field nested in an immediate field, e.g. in the "data" of a batch.
+   */
+  @NotNull ObjectApiRequest<T> addNestedField(@NotNull String parent, boolean recursive, @NotNull String fieldName,
+                                              @NotNull String... fieldNames) {
+    var nested = specs.addNested(parent);
+    if (recursive) {
+      nested.addRecursiveField(fieldName, fieldNames);
+    } else {
+      nested.addField(fieldName, fieldNames);
+    }
+    compiledSpecs = null;
+    return this;
+  }
+
+  /**
+   * Add an immediate field with only the subfields of a projection, see {@link FieldSpecs#addProjection}.
+   */
+  @NotNull ObjectApiRequest<T> addProjectedField(@NotNull String fieldName, @NotNull DatatypeStructure projection) {
+    specs.addProjection(fieldName, projection);
+    compiledSpecs = null;
     return this;
   }
 
+  /**
+   * @return a request to the same endpoint with the same parameters and timeout but no fields added,
+   * decoding the response as another type.
+   */
+  <R> @NotNull ObjectApiRequest<R> withType(@NotNull Type type) {
+    var res = new ObjectApiRequest<R>(spaceService, endpoint, method, type, structure);
+    res.parameterMap.putAll(parameterMap);
+    res.timeout = timeout;
+    return res;
+  }
+
   @Override
   public @NotNull ApiRequest<T> addParameterList(@NotNull String key, @NotNull Collection<String> values) {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public @NotNull ApiRequest<T> setTimeout(@NotNull Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
   @Override
   public @NotNull T execute() throws IOException, InterruptedException {
-    doAddParameter("$fields", specs.toString());
-    return SpaceService.GSON.fromJson(spaceService.rawJSONQuery(endpoint, method, parameterMap), type);
+    return SpaceService.await(executeAsync());
+  }
+
+  @Override
+  public @NotNull CompletableFuture<T> executeAsync() {
+    return executeAsync(snapshotParameters(), newDeadline());
+  }
+
+  /**
+   * @return the deadline of an execution starting now.
+   */
+  @NotNull Deadline newDeadline() {
+    return spaceService.deadline(timeout);
+  }
+
+  /**
+   * @return a copy of the current request parameters, including the special "$fields" parameter
+   * with the compiled current field specifications.
+   */
+  @NotNull Map<String, Object> snapshotParameters() {
+    var parameters = new HashMap<>(parameterMap);
+    if (compiledSpecs == null) {
+      compiledSpecs = specs.compile();
+    }
+    parameters.put("$fields", compiledSpecs);
+    return parameters;
+  }
+
+  /**
+   * Execute the request with the given parameters instead of the current ones.
+   */
+  @NotNull CompletableFuture<T> executeAsync(@NotNull Map<String, Object> parameters, @NotNull Deadline deadline) {
+    return executeAsync(parameters, reader -> SpaceService.GSON.fromJson(reader, type), deadline);
+  }
+
+  /**
+   * Execute the request with the given parameters, decoding the response with a custom decoder.
+   * The decoder must produce the same result as the default one, as identical requests might share the result.
+   */
+  @NotNull CompletableFuture<T> executeAsync(@NotNull Map<String, Object> parameters,
+                                             @NotNull ResponseDecoder<T> decoder, @NotNull Deadline deadline) {
+    return spaceService.queryAsync(endpoint, method, parameters, decoder, type, deadline);
   }
 }
@@ -0,0 +1,78 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.datatype.BatchResponse;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Walks the pages of a batched request one by one, chunk after chunk.
+ * <p>
+ * The cursor is not thread-safe: a page must only be requested after the previous one has been received.
+ *
+ * @param <T> the list element type.
+ */
+class PageCursor<T> {
+
+  private final @NotNull Function<Map<String, Object>, CompletableFuture<BatchResponse<T>>> fetch;
+  private final @NotNull Iterator<Map<String, Object>> chunks;
+
+  private @Nullable Map<String, Object> chunk = null;
+  private @Nullable String skip = null;
+  private int received = 0;
+
+  /**
+   * @param fetch  requests a page with the given parameters.
+   * @param chunks the parameters of each chunk.
+   */
+  PageCursor(@NotNull Function<Map<String, Object>, CompletableFuture<BatchResponse<T>>> fetch,
+             @NotNull List<Map<String, Object>> chunks) {
+    this.fetch = fetch;
+    this.chunks = chunks.iterator();
+  }
+
+  /**
+   * @return whether there are no more pages to request.
+   */
+  boolean isExhausted() {
+    return chunk == null && !chunks.hasNext();
+  }
+
+  /**
+   * Request the next page.
+   *
+   * @return the future page, or null if there are no more pages.
+   */
+  @NotNull CompletableFuture<@Nullable BatchResponse<T>> next() {
+    if (chunk == null) {
+      if (!chunks.hasNext()) {
+        return CompletableFuture.completedFuture(null);
+      }
+      chunk = chunks.next();
+      skip = null;
+      received = 0;
+    }
+    final Map<String, Object> parameters;
+    if (skip == null) {
+      parameters = chunk;
+    } else {
+      parameters = new HashMap<>(chunk);
+      parameters.put("$skip", skip);
+    }
+    return fetch.apply(parameters).thenApply(batchResponse -> {
+      received += batchResponse.data.size();
+      if (batchResponse.next.equals(skip) || received == batchResponse.totalCount) {
+        // the chunk is over
+        chunk = null;
+      }
+      skip = batchResponse.next;
+      return batchResponse;
+    });
+  }
+}
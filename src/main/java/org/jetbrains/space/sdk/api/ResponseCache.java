@@ -0,0 +1,200 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.space.sdk.fields.CompiledFieldSpecs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded in-memory cache of GET responses, evicting the least recently used endpoint and parameter combinations.
+ *
+ * Responses are cached per endpoint, with the query parameters in a canonical order. A request is served from
+ * the cache if a cached response for the same endpoint and parameters was requested with the same fields,
+ * or with a superset of them. In the latter case the decoded objects might contain more fields than requested.
+ *
+ * Only the endpoints with a positive time to live are cached, see {@link #setTtl}.
+ * Use {@link SpaceService#setResponseCache} to enable the cache.
+ */
+public class ResponseCache {
+
+    /**
+     * How many responses with different fields are kept for the same endpoint and parameters.
+     */
+    private static final int MAX_VARIANTS = 4;
+
+    private final int maxEntries;
+    private final @NotNull Duration defaultTtl;
+    private final @NotNull Map<String, Duration> ttls = new LinkedHashMap<>();
+
+    private final @NotNull LinkedHashMap<String, List<Entry>> entries;
+
+    private final @NotNull LongAdder hits = new LongAdder();
+    private final @NotNull LongAdder misses = new LongAdder();
+    private final @NotNull LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries the maximum number of cached endpoint and parameter combinations.
+     * @param defaultTtl the time to live of the responses from the endpoints without a specific one,
+     *                   zero to cache only those endpoints.
+     */
+    public ResponseCache(int maxEntries, @NotNull Duration defaultTtl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("at least one entry must be allowed");
+        }
+        if (defaultTtl.isNegative()) {
+            throw new IllegalArgumentException("time to live can't be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.defaultTtl = defaultTtl;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<ResponseCache.Entry>> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.add(eldest.getValue().size());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Set the time to live of the responses from the endpoints starting with the prefix.
+     * The longest matching prefix wins.
+     *
+     * @param endpointPrefix the API endpoint prefix, e.g. "/api/http/public-holidays".
+     * @param ttl the time to live, zero to not cache the matching endpoints.
+     */
+    public synchronized @NotNull ResponseCache setTtl(@NotNull String endpointPrefix, @NotNull Duration ttl) {
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("time to live can't be negative");
+        }
+        ttls.put(endpointPrefix, ttl);
+        return this;
+    }
+
+    /**
+     * @return the time to live of the responses from the endpoint, zero if they shouldn't be cached.
+     */
+    synchronized @NotNull Duration ttl(@NotNull String endpoint) {
+        String longest = null;
+        for (String prefix : ttls.keySet()) {
+            if (endpoint.startsWith(prefix) && (longest == null || prefix.length() > longest.length())) {
+                longest = prefix;
+            }
+        }
+        return longest == null ? defaultTtl : ttls.get(longest);
+    }
+
+    /**
+     * @return the cache key for the endpoint and the parameters other than "$fields".
+     */
+    static @NotNull String key(@NotNull String endpoint, @NotNull Map<String, Object> parameters) {
+        var canonical = new TreeMap<>(parameters);
+        canonical.remove("$fields");
+        return endpoint + SpaceQueryParameters.toQueryParameters(canonical);
+    }
+
+    /**
+     * @param fields the requested fields, null if not specified.
+     * @return the cached decompressed response body, or null if there is none covering the fields.
+     */
+    synchronized byte @Nullable [] get(@NotNull String key, @Nullable CompiledFieldSpecs fields) {
+        var variants = entries.get(key);
+        if (variants != null) {
+            long now = System.nanoTime();
+            variants.removeIf(entry -> entry.expired(now));
+            if (variants.isEmpty()) {
+                entries.remove(key);
+            } else {
+                for (Entry entry : variants) {
+                    if (entry.covers(fields)) {
+                        hits.increment();
+                        return entry.body;
+                    }
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @param fields the fields the body was requested with, null if not specified.
+     * @param body the decompressed response body.
+     */
+    synchronized void put(@NotNull String key, @Nullable CompiledFieldSpecs fields, byte @NotNull [] body,
+                          @NotNull Duration ttl) {
+        var entry = new Entry(fields, body, System.nanoTime() + ttl.toNanos());
+        var variants = entries.computeIfAbsent(key, ignored -> new ArrayList<>());
+        // the new response is the most recent one for every field set it covers
+        variants.removeIf(variant -> entry.covers(variant.fields));
+        if (variants.size() >= MAX_VARIANTS) {
+            variants.remove(0);
+            evictions.increment();
+        }
+        variants.add(entry);
+    }
+
+    /**
+     * Remove all cached responses.
+     */
+    @SuppressWarnings("unused")
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of requests served from the cache.
+     */
+    @SuppressWarnings("unused")
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of cacheable requests not found in the cache.
+     */
+    @SuppressWarnings("unused")
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of responses evicted to stay within the size limits. Expired responses are not counted.
+     */
+    @SuppressWarnings("unused")
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static class Entry {
+        private final @Nullable CompiledFieldSpecs fields;
+        private final byte @NotNull [] body;
+        private final long expiresAt;
+
+        private Entry(@Nullable CompiledFieldSpecs fields, byte @NotNull [] body, long expiresAt) {
+            this.fields = fields;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        private boolean covers(@Nullable CompiledFieldSpecs requested) {
+            if (fields == null || requested == null) {
+                return fields == requested;
+            }
+            return fields.covers(requested);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.jetbrains.space.sdk.api;
+
+import com.google.gson.stream.JsonReader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Converts a Space API response to a Java object while it is being received.
+ *
+ * @param <R> the result type.
+ */
+@FunctionalInterface
+interface ResponseDecoder<R> {
+
+  /**
+   * @param reader the reader positioned at the start of the response body.
+   * @return the decoded response.
+   * @throws IOException if the body can't be read.
+   */
+  R decode(@NotNull JsonReader reader) throws IOException;
+}
@@ -0,0 +1,149 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when and how soon the failed attempts of a request are retried.
+ *
+ * Server errors and closed connections are retried after a back-off with decorrelated jitter: every delay is
+ * random between the base delay and three times the previous one, so that clients failed together don't retry
+ * in lockstep. These retries are limited by a retry budget: every request earns a fraction of a retry, so that
+ * retries can't multiply the load of a failing server. Requests with non-idempotent methods, e.g. POST, are only
+ * retried if the server has certainly not processed them, i.e. after "401 Unauthorized" or "429 Too Many Requests".
+ * The latter are retried after the delay the server asks for or, if it doesn't, after the same back-off. Unless
+ * the service has a request rate limiter, which then paces them, they are limited by the retry budget too.
+ *
+ * A timeout covers all attempts of a request and, for batch requests, all pages. A retry that can't start before
+ * the timeout is not attempted. The timeout of a request can also be set with {@link ApiRequest#setTimeout}.
+ *
+ * Set with {@link SpaceService.Builder#setRetryPolicy}. As the budget is earned by the requests of a service,
+ * every service needs a policy of its own.
+ */
+public class RetryPolicy {
+
+  private int maxRetries = 2;
+  private int maxThrottledRetries = 10;
+  private @NotNull Duration baseDelay = Duration.ofMillis(100);
+  private @NotNull Duration maxDelay = Duration.ofSeconds(10);
+  private double budgetRatio = 0.1;
+  private double maxBudget = 10;
+  private @Nullable Duration timeout = null;
+
+  private double budget = maxBudget;
+  private final @NotNull LongAdder budgetExhausted = new LongAdder();
+
+  /**
+   * @param maxRetries how many times a request is retried after server errors, closed connections and
+   *                   authorization failures. 2 by default.
+   */
+  public @NotNull RetryPolicy setMaxRetries(int maxRetries) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("the number of retries can't be negative");
+    }
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * @param maxThrottledRetries how many times a request is retried after "429 Too Many Requests". 10 by default.
+   *                            With a request rate limiter, these retries are paced by the limiter rather than
+   *                            by the back-off and the retry budget.
+   */
+  public @NotNull RetryPolicy setMaxThrottledRetries(int maxThrottledRetries) {
+    if (maxThrottledRetries < 0) {
+      throw new IllegalArgumentException("the number of retries can't be negative");
+    }
+    this.maxThrottledRetries = maxThrottledRetries;
+    return this;
+  }
+
+  /**
+   * @param baseDelay the minimum delay before a retry, 100 ms by default.
+   * @param maxDelay the maximum delay before a retry, 10 s by default.
+   */
+  public @NotNull RetryPolicy setBackOff(@NotNull Duration baseDelay, @NotNull Duration maxDelay) {
+    if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+      throw new IllegalArgumentException("the delays can't be negative and the base delay can't exceed the maximum");
+    }
+    this.baseDelay = baseDelay;
+    this.maxDelay = maxDelay;
+    return this;
+  }
+
+  /**
+   * @param ratio the fraction of a retry earned by every request, 0.1 by default.
+   * @param maxBudget the maximum number of retries saved up, i.e. the largest burst of retries. 10 by default.
+   */
+  public synchronized @NotNull RetryPolicy setRetryBudget(double ratio, double maxBudget) {
+    if (ratio < 0 || maxBudget < 1) {
+      throw new IllegalArgumentException("the ratio can't be negative and the budget must allow a retry");
+    }
+    this.budgetRatio = ratio;
+    this.maxBudget = maxBudget;
+    this.budget = Math.min(budget, maxBudget);
+    return this;
+  }
+
+  /**
+   * @param timeout the default time limit of a request, including all its attempts and pages. None by default.
+   */
+  public @NotNull RetryPolicy setTimeout(@Nullable Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  /**
+   * @return the number of retries denied because the retry budget was exhausted.
+   */
+  public long getBudgetExhausted() {
+    return budgetExhausted.sum();
+  }
+
+  int getMaxRetries() {
+    return maxRetries;
+  }
+
+  int getMaxThrottledRetries() {
+    return maxThrottledRetries;
+  }
+
+  @Nullable Duration getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * A request has been sent for the first time.
+   */
+  synchronized void onRequest() {
+    budget = Math.min(maxBudget, budget + budgetRatio);
+  }
+
+  /**
+   * @return whether the budget allows a retry, which is then withdrawn from the budget.
+   */
+  synchronized boolean tryRetry() {
+    if (budget < 1) {
+      budgetExhausted.increment();
+      return false;
+    }
+    budget -= 1;
+    return true;
+  }
+
+  /**
+   * @param previous the previous delay of the request, null if it hasn't been retried yet.
+   * @return the delay before the next retry.
+   */
+  @NotNull Duration nextDelay(@Nullable Duration previous) {
+    long base = baseDelay.toNanos();
+    long last = previous == null ? base : previous.toNanos();
+    long upper = Math.min(maxDelay.toNanos(), Math.max(base, last > Long.MAX_VALUE / 3 ? Long.MAX_VALUE : last * 3));
+    long delay = upper > base ? ThreadLocalRandom.current().nextLong(base, upper + 1) : base;
+    return Duration.ofNanos(delay);
+  }
+}
@@ -1,6 +1,7 @@
 package org.jetbrains.space.sdk.api;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.space.sdk.fields.CompiledFieldSpecs;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -31,6 +32,10 @@ public class SpaceQueryParameters {
                 for (Object o : (List<?>) value) {
                     appendKeyValue(builder, entry.getKey(), o.toString());
                 }
+            } else if (value instanceof CompiledFieldSpecs) {
+                // encoded once for all the pages and retries
+                builder.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8)).append("=")
+                        .append(((CompiledFieldSpecs) value).getEncoded()).append("&");
             } else {
                 appendKeyValue(builder, entry.getKey(), value.toString());
             }
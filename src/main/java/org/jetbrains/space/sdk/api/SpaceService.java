@@ -8,23 +8,44 @@ import com.google.gson.stream.JsonWriter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.space.sdk.datatype.*;
+import org.jetbrains.space.sdk.fields.CompiledFieldSpecs;
+import org.jetbrains.space.sdk.metrics.EndpointTemplate;
+import org.jetbrains.space.sdk.metrics.SpaceMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Describes a Space service that allows to make API calls.
@@ -47,6 +68,10 @@ import java.util.Map;
  * Our library handles the pagination and chunking of parameter lists internally.
  * It also implicitly requests and refreshes the OAuth token as needed.
  *
+ * Requests can be executed either synchronously with {@link ApiRequest#execute} or asynchronously
+ * with {@link ApiRequest#executeAsync}. Both share the same non-blocking machinery: the network calls,
+ * the retry back-offs and the token refreshes are chained on futures and don't occupy a thread while waiting.
+ *
  * If your favorite endpoint is not implemented yet, you can construct the request yourself with get* methods!
  * There are three types of Space API GET queries. Queries can return:
  * - a single object. Constructed using {@link #getObject}.
@@ -55,13 +80,31 @@ import java.util.Map;
  */
 public class SpaceService {
 
-    private final @NotNull String domain;
+    private final @NotNull String baseUri;
     private final @NotNull String serviceId;
     private final @NotNull String serviceSecret;
     private final @NotNull OAuthToken oauth;
-    private final @NotNull HttpClient httpClient;
+    private final @NotNull SpaceTransport transport;
+    private final @NotNull Executor executor;
+    /**
+     * Null if the requests aren't rate limited, see {@link Builder#setRequestRate}.
+     */
+    private final @Nullable AdaptiveRateLimiter rateLimiter;
+    private final @NotNull SpaceMetrics metrics;
+    private final @Nullable HedgingPolicy hedgingPolicy;
+    private final @NotNull RetryPolicy retryPolicy;
+    private final @NotNull LongAdder receivedBytes = new LongAdder();
+    private final @NotNull LongAdder decodedBytes = new LongAdder();
+    private volatile @Nullable ResponseCache responseCache = null;
+    private final @NotNull InFlightRequests inFlight = new InFlightRequests();
 
-    private static final int SERVER_ERROR_RETRIES = 2;
+    /**
+     * The methods of the requests that can be safely retried even if the server might have processed them.
+     */
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+    private static final Duration LOADER_WINDOW = Duration.ofMillis(5);
+    private static final int LOADER_BATCH_SIZE = 100;
+    private static final int LOADER_PARALLELISM = 8;
     private static final Logger LOGGER = LoggerFactory.getLogger(SpaceService.class);
 
     /**
@@ -70,120 +113,727 @@ public class SpaceService {
      * @param serviceSecret The service secret.
      */
     public SpaceService(@NotNull String domain, @NotNull String serviceId, @NotNull String serviceSecret) {
-        this.domain = domain;
-        this.serviceId = serviceId;
-        this.serviceSecret = serviceSecret;
+        this(builder().setDomain(domain).setServiceCredentials(serviceId, serviceSecret));
+    }
+
+    private SpaceService(@NotNull Builder builder) {
+        if (builder.baseUri == null || builder.serviceId == null || builder.serviceSecret == null) {
+            throw new IllegalStateException("the domain and the service credentials must be set");
+        }
+        baseUri = builder.baseUri.toString().replaceAll("/+$", "");
+        serviceId = builder.serviceId;
+        serviceSecret = builder.serviceSecret;
+        responseCache = builder.responseCache;
+        // recovers from a halving of the initial rate in about five seconds of successful responses
+        rateLimiter = builder.initialRate > 0
+                ? new AdaptiveRateLimiter(builder.initialRate, 1, builder.maxRate, builder.initialRate / 10)
+                : null;
+        metrics = builder.metrics;
+        hedgingPolicy = builder.hedgingPolicy;
+        retryPolicy = builder.retryPolicy != null ? builder.retryPolicy : new RetryPolicy();
 
         oauth = new OAuthToken();
-        httpClient = HttpClient.newBuilder().build();
+        executor = builder.executor != null ? builder.executor : TaskExecutors.newExecutor();
+        if (builder.transport != null) {
+            transport = builder.transport;
+        } else {
+            var httpClient = HttpClient.newBuilder().executor(executor);
+            if (builder.connectTimeout != null) {
+                httpClient.connectTimeout(builder.connectTimeout);
+            }
+            if (builder.httpVersion != null) {
+                httpClient.version(builder.httpVersion);
+            }
+            transport = new JdkTransport(httpClient.build(), builder.requestTimeout);
+        }
+    }
+
+    /**
+     * @return a builder to configure a service, e.g. its timeouts or its transport.
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configures a {@link SpaceService}. The domain (or the base URI) and the service credentials are required.
+     * These methods follow the builder pattern and can be chained.
+     */
+    public static class Builder {
+        private @Nullable URI baseUri = null;
+        private @Nullable String serviceId = null;
+        private @Nullable String serviceSecret = null;
+        private @Nullable Executor executor = null;
+        private @Nullable SpaceTransport transport = null;
+        private @Nullable Duration connectTimeout = null;
+        private @Nullable Duration requestTimeout = null;
+        private @Nullable HttpClient.Version httpVersion = null;
+        private @Nullable ResponseCache responseCache = null;
+        // no rate limiting until set
+        private double initialRate = 0;
+        private double maxRate = 0;
+        private @NotNull SpaceMetrics metrics = SpaceMetrics.NONE;
+        private @Nullable HedgingPolicy hedgingPolicy = null;
+        private @Nullable RetryPolicy retryPolicy = null;
+
+        private Builder() {
+        }
+
+        /**
+         * @param domain the domain name of the Space server, e.g. "jetbrains.team".
+         */
+        public @NotNull Builder setDomain(@NotNull String domain) {
+            return setBaseUri(URI.create("https://" + domain));
+        }
+
+        /**
+         * @param baseUri the scheme, host and port of the Space server, e.g. "http://localhost:8080" for a mock server.
+         */
+        public @NotNull Builder setBaseUri(@NotNull URI baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        public @NotNull Builder setServiceCredentials(@NotNull String serviceId, @NotNull String serviceSecret) {
+            this.serviceId = serviceId;
+            this.serviceSecret = serviceSecret;
+            return this;
+        }
+
+        /**
+         * @param executor the executor for the internal tasks and, with the default transport, for the HTTP client.
+         *                 By default, a pool of daemon threads, or virtual threads on Java 21+.
+         */
+        public @NotNull Builder setExecutor(@NotNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Replace the default transport, the JDK HTTP client. The connect timeout, the request timeout and
+         * the HTTP version only apply to the default transport.
+         */
+        public @NotNull Builder setTransport(@NotNull SpaceTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * @param connectTimeout how long to wait for a connection to be established. By default, indefinitely.
+         */
+        public @NotNull Builder setConnectTimeout(@NotNull Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * @param requestTimeout how long to wait for the response headers of a single attempt. By default, indefinitely.
+         */
+        public @NotNull Builder setRequestTimeout(@NotNull Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * @param httpVersion the preferred HTTP version. By default, HTTP/2 with a fallback to HTTP/1.1.
+         */
+        public @NotNull Builder setHttpVersion(@NotNull HttpClient.Version httpVersion) {
+            this.httpVersion = httpVersion;
+            return this;
+        }
+
+        /**
+         * @see SpaceService#setResponseCache
+         */
+        public @NotNull Builder setResponseCache(@NotNull ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Limit the rate of the requests of the service, e.g. {@code setRequestRate(100, 1000)}. The rate adapts to
+         * the server responses: it grows by a tenth of the initial rate with every second worth of successful
+         * responses, halves when the server throttles the requests, and all the requests pause for the time
+         * the server asks. The requests over the rate wait for
+         * their turn, without blocking a thread.
+         * <p>
+         * By default, the requests aren't rate limited, and only a throttled request waits before it is retried.
+         *
+         * @param initialRate the initial request rate, in requests per second.
+         * @param maxRate the request rate never grows above this value.
+         */
+        public @NotNull Builder setRequestRate(double initialRate, double maxRate) {
+            if (initialRate < 1 || maxRate < initialRate) {
+                throw new IllegalArgumentException("the rates must be at least 1 and the initial rate at most the maximum");
+            }
+            this.initialRate = initialRate;
+            this.maxRate = maxRate;
+            return this;
+        }
+
+        /**
+         * @param metrics receives the measurements of the requests, e.g. {@link org.jetbrains.space.sdk.metrics.HistogramMetrics}.
+         */
+        public @NotNull Builder setMetrics(@NotNull SpaceMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param hedgingPolicy how to hedge slow GET requests. By default, requests are not hedged.
+         */
+        public @NotNull Builder setHedgingPolicy(@NotNull HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * @param retryPolicy when and how soon to retry failed requests, and their default timeout.
+         *                    By default, two retries after server errors with a jittered back-off, and no timeout.
+         */
+        public @NotNull Builder setRetryPolicy(@NotNull RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public @NotNull SpaceService build() {
+            return new SpaceService(this);
+        }
+    }
+
+    /**
+     * The executor for the internal tasks, such as scheduled retries or parsing of pages.
+     */
+    @NotNull Executor executor() {
+        return executor;
+    }
+
+    @NotNull SpaceMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * @param timeout the timeout of the request, null for the default one of the retry policy.
+     * @return the deadline of a request executed now.
+     */
+    @NotNull Deadline deadline(@Nullable Duration timeout) {
+        return Deadline.after(timeout != null ? timeout : retryPolicy.getTimeout());
+    }
+
+    /**
+     * @return the total number of response body bytes received by this service, as sent over the network,
+     * i.e. possibly compressed.
+     */
+    @SuppressWarnings("unused")
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    /**
+     * @return the total number of response body bytes decoded by this service, after decompression.
+     * Compare with {@link #getReceivedBytes()} to see the compression savings.
+     */
+    @SuppressWarnings("unused")
+    public long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    /**
+     * Serve the GET requests from the given cache when possible, and cache their responses.
+     *
+     * @param responseCache the cache, possibly shared with other services of the same domain; null to disable.
+     */
+    @SuppressWarnings("unused")
+    public @NotNull SpaceService setResponseCache(@Nullable ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        return this;
+    }
+
+    /**
+     * @return the number of GET requests that shared the network call and the decoded result with an identical
+     * concurrent request.
+     */
+    @SuppressWarnings("unused")
+    public long getCoalescedRequests() {
+        return inFlight.getCoalesced();
+    }
+
+    /**
+     * @return the share of GET requests that were coalesced with an identical concurrent request, from 0 to 1.
+     */
+    @SuppressWarnings("unused")
+    public double getDedupeRatio() {
+        long requests = inFlight.getRequests();
+        return requests == 0 ? 0 : (double) inFlight.getCoalesced() / requests;
     }
 
     private @NotNull URI uri(@NotNull String endpoint) {
-        return URI.create("https://" + domain + endpoint);
+        return URI.create(baseUri + endpoint);
     }
 
     private @NotNull URI uri(@NotNull String endpoint, @NotNull Map<String, Object> payload) {
-        return URI.create("https://" + domain + endpoint + SpaceQueryParameters.toQueryParameters(payload));
+        return URI.create(baseUri + endpoint + SpaceQueryParameters.toQueryParameters(payload));
     }
 
     /**
-     * Queries the given Space API endpoint using the specified method and payload, returns the response
-     * as raw JSON.
+     * Queries the given Space API endpoint using the specified method and payload, decodes the response
+     * while it is being received.
      *
      * Depending on the method, the payload will be converted to either the URL query parameters or to the request body.
+     * The "$fields" parameter can be supplied as {@link CompiledFieldSpecs}, which allows GET responses to be served
+     * from the response cache for a superset of the fields.
      *
      * @param endpoint the API endpoint, e.g. "/api/http/absences".
      * @param method the HTTP method, e.g. "GET".
      * @param payload the query parameters.
-     * @return the response as raw JSON.
-     * @throws IOException if the HTTP request throws it.
-     * @throws InterruptedException if the HTTP request throws it.
+     * @param decoder the response body decoder. Might be invoked more than once if the response is retried.
+     * @param resultType the type of the decoded response. Identical concurrent GET queries with the same result type
+     *                   share a single network call and the decoded response.
+     * @param deadline when the query must be over. Shared GET queries are retried while the deadline of the first
+     *                 one allows, but every query fails on its own deadline.
+     * @return the future decoded response. Completes exceptionally with an IOException if the query fails,
+     * or with an {@link HttpTimeoutException} if the deadline passes.
      */
-    @NotNull JsonElement rawJSONQuery(@NotNull String endpoint, @NotNull String method,
-                                      @NotNull Map<String, Object> payload) throws IOException, InterruptedException {
-        var builder = HttpRequest.newBuilder().header("Accept", "application/json");
+    <R> @NotNull CompletableFuture<R> queryAsync(@NotNull String endpoint, @NotNull String method,
+                                                 @NotNull Map<String, Object> payload,
+                                                 @NotNull ResponseDecoder<R> decoder, @NotNull Type resultType,
+                                                 @NotNull Deadline deadline) {
+        String template = EndpointTemplate.of(endpoint);
+        metrics.onRequestStart(template, method);
+        long start = System.nanoTime();
+        CompletableFuture<R> res = queryAsync(endpoint, template, method, payload, decoder, resultType, deadline);
+        expireAt(res, deadline, endpoint);
+        res.whenComplete((ignored, error) ->
+                metrics.onRequestEnd(template, method, System.nanoTime() - start, error == null ? null : unwrap(error)));
+        return res;
+    }
+
+    private <R> @NotNull CompletableFuture<R> queryAsync(@NotNull String endpoint, @NotNull String template,
+                                                         @NotNull String method, @NotNull Map<String, Object> payload,
+                                                         @NotNull ResponseDecoder<R> decoder,
+                                                         @NotNull Type resultType, @NotNull Deadline deadline) {
+        var headers = new LinkedHashMap<String, String>();
+        headers.put("Accept", "application/json");
+        headers.put("Accept-Encoding", ContentEncoding.ACCEPTED);
+        var fields = payload.get("$fields") instanceof CompiledFieldSpecs
+                ? (CompiledFieldSpecs) payload.get("$fields") : null;
         if ("GET".equals(method)) {
-            builder.method("GET", HttpRequest.BodyPublishers.noBody()).uri(uri(endpoint, payload));
+            var uri = uri(endpoint, payload);
+            var query = new Query<>(new SpaceTransport.Request("GET", uri, headers, null), template,
+                    Authorization.BEARER, decoder, deadline);
+            var cache = responseCache;
+            if (cache != null && !cache.ttl(endpoint).isZero()) {
+                String key = ResponseCache.key(endpoint, payload);
+                byte[] cached = cache.get(key, fields);
+                if (cached != null) {
+                    LOGGER.trace("Serving {} from the cache", key);
+                    return decodeCached(cached, decoder);
+                }
+                query.cache(cache, key, fields, cache.ttl(endpoint));
+            }
+            return inFlight.join(List.of(uri, resultType), () -> start(query));
         } else {
-            builder.method(method, HttpRequest.BodyPublishers.ofString(SpaceQueryParameters.toPostBody(payload)))
-                    .uri(uri(endpoint)).setHeader("Content-Type", "application/json");
-        }
-        return rawJSONQuery(builder, Authorization.BEARER);
-    }
-
-    private @NotNull JsonElement rawJSONQuery(@NotNull HttpRequest.Builder builder,
-                                              @NotNull Authorization authorization) throws IOException, InterruptedException {
-        long start = System.currentTimeMillis();
-        int attempt = 0;
-        HttpRequest request = builder.build();
-        HttpResponse<String> response = null;
-        while (waitAndRetry(attempt)) {
-            attempt++;
-            // the token could have been refreshed, reapply authorization
-            applyAuthorization(builder, authorization);
-            request = builder.build();
-            LOGGER.trace("Querying {}, attempt {}", request.uri(), attempt);
-            try {
-                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            var body = new HashMap<>(payload);
+            body.computeIfPresent("$fields", (key, value) -> value.toString());
+            headers.put("Content-Type", "application/json");
+            var request = new SpaceTransport.Request(method, uri(endpoint), headers,
+                    SpaceQueryParameters.toPostBody(body).getBytes(StandardCharsets.UTF_8));
+            return start(new Query<>(request, template, Authorization.BEARER, decoder, deadline));
+        }
+    }
+
+    /**
+     * Fail the future with an {@link HttpTimeoutException} once the deadline passes, unless it is over by then.
+     */
+    private static void expireAt(@NotNull CompletableFuture<?> future, @NotNull Deadline deadline,
+                                 @NotNull String endpoint) {
+        Duration remaining = deadline.remaining();
+        if (remaining == null) {
+            return;
+        }
+        // unlike a delayed task, the timer is discarded as soon as the future is over
+        var timer = new CompletableFuture<Void>();
+        timer.completeOnTimeout(null, Math.max(0, remaining.toNanos()), TimeUnit.NANOSECONDS).thenRun(() ->
+                future.completeExceptionally(new HttpTimeoutException("Deadline exceeded for " + endpoint)));
+        future.whenComplete((ignored, error) -> timer.cancel(false));
+    }
+
+    private <R> @NotNull CompletableFuture<R> decodeCached(byte @NotNull [] body, @NotNull ResponseDecoder<R> decoder) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (var reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    StandardCharsets.UTF_8))) {
+                return decoder.decode(reader);
             } catch (IOException e) {
-                if (e.getMessage().contains("GOAWAY received")) {
-                    // known to be harmless, wait and retry
-                    LOGGER.debug("GOAWAY received for {}, recovering", request.uri());
-                    continue;
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+
+    /**
+     * The state shared by all attempts of a single query.
+     */
+    private static class Query<R> {
+        /**
+         * The request without authorization, which is applied to every attempt.
+         */
+        private final @NotNull SpaceTransport.Request request;
+        /**
+         * The endpoint template, as reported to the metrics.
+         */
+        private final @NotNull String template;
+        private final @NotNull Authorization authorization;
+        private final @NotNull ResponseDecoder<R> decoder;
+        private final @NotNull Deadline deadline;
+        /**
+         * Whether the request can be retried even if the server might have processed it.
+         */
+        private final boolean idempotent;
+        private final long start = System.currentTimeMillis();
+        /**
+         * The number of retries after server errors, and after "429 Too Many Requests", which have a separate limit.
+         */
+        private int retries = 0;
+        private int throttledRetries = 0;
+        /**
+         * The back-off before the latest retry, null if there hasn't been any.
+         */
+        private @Nullable Duration retryDelay = null;
+        /**
+         * Where to store the decoded response, if it should be cached.
+         */
+        private @Nullable ResponseCache cache = null;
+        private @Nullable String cacheKey = null;
+        private @Nullable CompiledFieldSpecs cacheFields = null;
+        private @NotNull Duration cacheTtl = Duration.ZERO;
+        /**
+         * The exchange of the latest attempt, aborted when the query is cancelled.
+         */
+        private volatile @Nullable CompletableFuture<SpaceTransport.Response> exchange = null;
+        private volatile boolean cancelled = false;
+
+        private Query(@NotNull SpaceTransport.Request request, @NotNull String template,
+                      @NotNull Authorization authorization, @NotNull ResponseDecoder<R> decoder,
+                      @NotNull Deadline deadline) {
+            this.request = request;
+            this.template = template;
+            this.authorization = authorization;
+            this.decoder = decoder;
+            this.deadline = deadline;
+            // a token request has no side effects
+            idempotent = IDEMPOTENT_METHODS.contains(request.getMethod()) || authorization == Authorization.BASIC;
+        }
+
+        private void cache(@NotNull ResponseCache cache, @NotNull String key, @Nullable CompiledFieldSpecs fields,
+                           @NotNull Duration ttl) {
+            this.cache = cache;
+            this.cacheKey = key;
+            this.cacheFields = fields;
+            this.cacheTtl = ttl;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            var sent = exchange;
+            if (sent != null) {
+                sent.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Start the first attempt of the query.
+     *
+     * @return the future result. Unlike the futures it depends on, cancelling it aborts the exchange in progress,
+     * and no further attempts are made.
+     */
+    private <R> @NotNull CompletableFuture<R> start(@NotNull Query<R> query) {
+        CompletableFuture<R> res = attempt(query, 1, null);
+        res.whenComplete((ignored, error) -> {
+            if (error instanceof CancellationException) {
+                query.cancel();
+            }
+        });
+        return res;
+    }
+
+    private <R> @NotNull CompletableFuture<R> attempt(@NotNull Query<R> query, int attempt,
+                                                      @Nullable SpaceTransport.Response previous) {
+        // the token endpoint bypasses the rate limiter, as every other request might be waiting for the token
+        CompletableFuture<Void> permit = rateLimiter != null && query.authorization == Authorization.BEARER
+                ? rateLimiter.acquire(executor)
+                : CompletableFuture.completedFuture(null);
+        if (attempt == 1 && query.authorization == Authorization.BEARER) {
+            retryPolicy.onRequest();
+        }
+        // the token could have been refreshed, reapply authorization
+        return permit.thenCompose(ignored -> applyAuthorization(query.request, query.authorization)).thenCompose(request -> {
+            // the permit or the token might have taken all the time left
+            if (query.cancelled) {
+                return CompletableFuture.<R>failedFuture(new CancellationException());
+            }
+            Duration remaining = query.deadline.remaining();
+            if (remaining != null && remaining.toNanos() <= 0) {
+                return CompletableFuture.<R>failedFuture(deadlineExceeded(query, previous));
+            }
+            LOGGER.trace("Querying {}, attempt {}", request.getUri(), attempt);
+            metrics.onAttempt(query.template, request.getMethod(), attempt);
+            var sent = hedgingPolicy != null && "GET".equals(request.getMethod())
+                    ? hedgingPolicy.send(transport, request, query.template, executor)
+                    : transport.send(request);
+            query.exchange = sent;
+            if (query.cancelled) {
+                // cancelled while sending
+                sent.cancel(true);
+            }
+            if (remaining != null) {
+                // abort the exchange when the time is up, the transport releases the connection
+                sent.orTimeout(remaining.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return sent.handle((response, error) -> {
+                if (error != null) {
+                    return recover(query, attempt, previous, error);
+                }
+                int statusCode = response.getStatusCode();
+                if (rateLimiter != null) {
+                    rateLimiter.onHeaders(response.getHeaders());
+                }
+                if (statusCode == 200) {
+                    if (rateLimiter != null) {
+                        rateLimiter.onSuccess();
+                    }
+                    return decode(response, query).handle((result, decodeError) -> {
+                        if (decodeError != null) {
+                            return recover(query, attempt, response, decodeError);
+                        }
+                        LOGGER.debug("Queried {} in {} ms", request.getUri(), System.currentTimeMillis() - query.start);
+                        return CompletableFuture.completedFuture(result);
+                    }).thenCompose(Function.identity());
+                }
+                discard(response.getBody());
+                if (statusCode == 401) {
+                    // authorization invalid or expired, refresh token and retry
+                    LOGGER.trace("Response {}, refreshing token", statusCode);
+                    if (query.authorization == Authorization.BEARER) {
+                        // the token might have been refreshed by another request already
+                        String rejected = Objects.requireNonNullElse(request.getHeader("Authorization"), "");
+                        return oauth.refresh(rejected.substring(rejected.indexOf(' ') + 1))
+                                .thenCompose(ignored -> retry(query, attempt, response,
+                                        SpaceMetrics.RetryReason.UNAUTHORIZED));
+                    }
+                    return retry(query, attempt, response, SpaceMetrics.RetryReason.UNAUTHORIZED);
+                } else if (statusCode == 404) {
+                    return CompletableFuture.<R>failedFuture(new ObjectNotFoundException());
+                } else if (statusCode == 429) {
+                    // too many requests, slow down all requests and retry
+                    LOGGER.trace("Response {}, throttling", statusCode);
+                    return retryThrottled(query, attempt, response);
+                } else if (statusCode >= 500 && statusCode < 600) {
+                    // a server-side error, wait and retry
+                    LOGGER.trace("Response {}", statusCode);
+                    return retry(query, attempt, response, SpaceMetrics.RetryReason.SERVER_ERROR);
                 } else {
-                    // might be serious, rethrowing
-                    throw e;
+                    // irrecoverable error
+                    LOGGER.trace("Response {}, giving up", statusCode);
+                    return CompletableFuture.<R>failedFuture(failure(query, response));
                 }
-            }
-            int statusCode = response.statusCode();
-            if (statusCode == 200) {
-                LOGGER.debug("Queried {} in {} ms", request.uri(), System.currentTimeMillis() - start);
-                return JsonParser.parseString(response.body());
-            } else if (statusCode == 401) {
-                // authorization invalid or expired, refresh token and retry
-                LOGGER.trace("Response {}, refreshing token", statusCode);
-                if (authorization == Authorization.BEARER) {
-                    oauth.refresh();
+            }).thenCompose(Function.identity());
+        });
+    }
+
+    private <R> @NotNull CompletableFuture<R> recover(@NotNull Query<R> query, int attempt,
+                                                      @Nullable SpaceTransport.Response previous,
+                                                      @NotNull Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            return CompletableFuture.failedFuture(deadlineExceeded(query, previous));
+        }
+        if (cause instanceof IOException && String.valueOf(cause.getMessage()).contains("GOAWAY received")) {
+            // known to be harmless, wait and retry
+            LOGGER.debug("GOAWAY received for {}, recovering", query.request.getUri());
+            return retry(query, attempt, previous, SpaceMetrics.RetryReason.CONNECTION_CLOSED);
+        }
+        // might be serious, rethrowing
+        return CompletableFuture.failedFuture(cause);
+    }
+
+    /**
+     * Decompresses and decodes the response body on the service executor, as the decoder blocks while the body
+     * is being received.
+     *
+     * A response to be cached is received completely before decoding, and cached if it is decoded successfully.
+     */
+    private <R> @NotNull CompletableFuture<R> decode(@NotNull SpaceTransport.Response response,
+                                                     @NotNull Query<R> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            var receivedByResponse = new LongAdder();
+            var decodedByResponse = new LongAdder();
+            var received = new CountingInputStream(new CountingInputStream(response.getBody(), receivedBytes),
+                    receivedByResponse);
+            try (var decompressed = ContentEncoding.decompress(received, response.getHeaders()
+                    .firstValue("Content-Encoding").orElse(null));
+                 var body = new CountingInputStream(new CountingInputStream(decompressed, decodedBytes),
+                         decodedByResponse)) {
+                R res;
+                var cache = query.cache;
+                if (cache == null || query.cacheKey == null) {
+                    res = query.decoder.decode(new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+                } else {
+                    byte[] bytes = body.readAllBytes();
+                    res = query.decoder.decode(new JsonReader(new InputStreamReader(new ByteArrayInputStream(bytes),
+                            StandardCharsets.UTF_8)));
+                    cache.put(query.cacheKey, query.cacheFields, bytes, query.cacheTtl);
                 }
-            } else if (statusCode == 404) {
-                throw new ObjectNotFoundException();
-            } else if (statusCode == 429 || statusCode >= 500 && statusCode < 600) {
-                // too many requests or a server-side error, wait and retry
-                LOGGER.trace("Response {}", statusCode);
-            } else {
-                // irrecoverable error
-                LOGGER.trace("Response {}, giving up", statusCode);
-                break;
+                metrics.onResponse(query.template, query.request.getMethod(), receivedByResponse.sum(),
+                        decodedByResponse.sum(), System.nanoTime() - start);
+                return res;
+            } catch (IOException e) {
+                discard(received);
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    static void discard(@NotNull InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            LOGGER.trace("Failed to discard the response body", e);
+        }
+    }
+
+    private <R> @NotNull CompletableFuture<R> retry(@NotNull Query<R> query, int previousAttempt,
+                                                    @Nullable SpaceTransport.Response previous,
+                                                    @NotNull SpaceMetrics.RetryReason reason) {
+        if (query.retries >= retryPolicy.getMaxRetries()) {
+            return CompletableFuture.failedFuture(failure(query, previous));
+        }
+        if (!query.idempotent && reason != SpaceMetrics.RetryReason.UNAUTHORIZED) {
+            // the server might have processed the request, repeating it might repeat its effect
+            LOGGER.trace("Not retrying {} {}", query.request.getMethod(), query.request.getUri());
+            return CompletableFuture.failedFuture(failure(query, previous));
+        }
+        Duration delay = retryPolicy.nextDelay(query.retryDelay);
+        if (!query.deadline.allows(delay)) {
+            return CompletableFuture.failedFuture(deadlineExceeded(query, previous));
+        }
+        if (reason != SpaceMetrics.RetryReason.UNAUTHORIZED && !retryPolicy.tryRetry()) {
+            LOGGER.debug("Retry budget exhausted, not retrying {}", query.request.getUri());
+            return CompletableFuture.failedFuture(failure(query, previous));
+        }
+        query.retries++;
+        query.retryDelay = delay;
+        metrics.onRetry(query.template, query.request.getMethod(), reason);
+        // jittered back-off, scheduled rather than slept
+        Executor delayed = CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> attempt(query, previousAttempt + 1, previous), delayed)
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Retry after "429 Too Many Requests", honoring the "Retry-After" header if there is one, and with the jittered
+     * back-off of the retry policy otherwise. With a rate limiter, the back-off is applied to all requests of
+     * the service, otherwise only to the retry, which is then charged to the retry budget like any other.
+     */
+    private <R> @NotNull CompletableFuture<R> retryThrottled(@NotNull Query<R> query, int previousAttempt,
+                                                             @NotNull SpaceTransport.Response response) {
+        if (query.throttledRetries >= retryPolicy.getMaxThrottledRetries()) {
+            return CompletableFuture.failedFuture(failure(query, response));
+        }
+        Duration retryAfter = AdaptiveRateLimiter.retryAfter(response.getHeaders()).orElse(null);
+        Duration backOff = retryAfter != null ? retryAfter : retryPolicy.nextDelay(query.retryDelay);
+        if (!query.deadline.allows(backOff)) {
+            return CompletableFuture.failedFuture(deadlineExceeded(query, response));
+        }
+        // the rate limiter keeps the retries from adding to the load, without it only the budget does
+        if (rateLimiter == null && !retryPolicy.tryRetry()) {
+            LOGGER.debug("Retry budget exhausted, not retrying {}", query.request.getUri());
+            return CompletableFuture.failedFuture(failure(query, response));
+        }
+        query.throttledRetries++;
+        if (retryAfter == null) {
+            query.retryDelay = backOff;
+        }
+        metrics.onRetry(query.template, query.request.getMethod(), SpaceMetrics.RetryReason.THROTTLED);
+        if (rateLimiter == null) {
+            Executor delayed = CompletableFuture.delayedExecutor(backOff.toNanos(), TimeUnit.NANOSECONDS, executor);
+            return CompletableFuture.supplyAsync(() -> attempt(query, previousAttempt + 1, response), delayed)
+                    .thenCompose(Function.identity());
+        }
+        rateLimiter.onThrottled(backOff);
+        return attempt(query, previousAttempt + 1, response);
+    }
+
+    private static @NotNull IOException failure(@NotNull Query<?> query, @Nullable SpaceTransport.Response response) {
+        var uri = query.request.getUri();
+        LOGGER.error("Failed to query {} in {} ms", uri, System.currentTimeMillis() - query.start);
+        return new IOException("Failed to query " + uri + ", last response was " + describe(query, response));
+    }
+
+    private static @NotNull HttpTimeoutException deadlineExceeded(@NotNull Query<?> query,
+                                                                  @Nullable SpaceTransport.Response response) {
+        var uri = query.request.getUri();
+        LOGGER.error("Deadline exceeded for {} after {} ms", uri, System.currentTimeMillis() - query.start);
+        return new HttpTimeoutException("Deadline exceeded for " + uri + ", last response was "
+                + describe(query, response));
+    }
+
+    private static @NotNull String describe(@NotNull Query<?> query, @Nullable SpaceTransport.Response response) {
+        return response == null ? "none" : "(" + query.request + ") " + response.getStatusCode();
+    }
+
+    /**
+     * Waits for the future to complete and unwraps its failure.
+     *
+     * If the waiting thread is interrupted, the future is cancelled.
+     *
+     * @return the result of the future.
+     * @throws IOException if the future failed with it, or with a checked exception of a different type.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    static <T> T await(@NotNull CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new IOException(cause);
         }
-        LOGGER.error("Failed to query {} in {} ms", request.uri(), System.currentTimeMillis() - start);
-        throw new IOException("Failed to query " + request.uri() + ", last response was " + response);
     }
 
-    private boolean waitAndRetry(int previousAttempt) throws InterruptedException {
-        if (previousAttempt == 0) return true;
-        if (previousAttempt > SERVER_ERROR_RETRIES) return false;
-        // exponential back-off
-        Thread.sleep(100L << previousAttempt);
-        return true;
+    static @NotNull Throwable unwrap(@NotNull Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+                && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
     }
 
     private enum Authorization {
         BASIC, BEARER
     }
 
-    private void applyAuthorization(@NotNull HttpRequest.Builder builder, @NotNull Authorization authorization)
-            throws IOException, InterruptedException {
+    private @NotNull CompletableFuture<SpaceTransport.Request> applyAuthorization(
+            @NotNull SpaceTransport.Request request, @NotNull Authorization authorization) {
         switch (authorization) {
             case BASIC:
-                builder.setHeader("Authorization",
+                return CompletableFuture.completedFuture(request.withHeader("Authorization",
                         "Basic " + Base64.getEncoder().encodeToString((serviceId + ":" + serviceSecret)
-                                .getBytes(StandardCharsets.UTF_8)));
-                break;
+                                .getBytes(StandardCharsets.UTF_8))));
             case BEARER:
-                oauth.refreshIfNeeded();
-                builder.setHeader("Authorization", "Bearer " + oauth.token);
-                break;
+                return oauth.get().thenApply(token -> request.withHeader("Authorization", "Bearer " + token));
+            default:
+                throw new IllegalArgumentException(authorization.toString());
         }
     }
 
@@ -196,7 +846,7 @@ public class SpaceService {
      * - "location", the ID of a location, String. Note that the result will also include the holidays
      *   for all the parent locations.
      */
-    public @NotNull ApiRequest<List<PublicHoliday>> getHolidays() {
+    public @NotNull BatchRequest<PublicHoliday> getHolidays() {
         return getBatch("/api/http/public-holidays/holidays", PublicHoliday.class);
     }
 
@@ -228,7 +878,7 @@ public class SpaceService {
      *
      * @param viewMode One of "All", "WithAccessibleReasonUnapproved", or "WithAccessibleReasonAll"
      */
-    public @NotNull ApiRequest<List<AbsenceRecord>> getAbsences(@NotNull String viewMode) {
+    public @NotNull BatchRequest<AbsenceRecord> getAbsences(@NotNull String viewMode) {
         return getBatch("/api/http/absences", AbsenceRecord.class).addParameter("viewMode", viewMode);
     }
 
@@ -243,7 +893,7 @@ public class SpaceService {
      *
      */
     @SuppressWarnings("unused")
-    public @NotNull ApiRequest<List<TD_MemberProfile>> getProfiles() {
+    public @NotNull BatchRequest<TD_MemberProfile> getProfiles() {
         return getBatch("/api/http/team-directory/profiles", TD_MemberProfile.class);
     }
 
@@ -257,16 +907,16 @@ public class SpaceService {
         return getObject("/api/http/team-directory/profiles/id:" + id, TD_MemberProfile.class);
     }
 
-    public @NotNull ApiRequest<List<TD_MemberLocation>> getMemberLocations() {
+    public @NotNull BatchRequest<TD_MemberLocation> getMemberLocations() {
         return getBatch("/api/http/team-directory/member-locations", TD_MemberLocation.class);
     }
 
     @SuppressWarnings("unused")
-    public @NotNull ApiRequest<List<TD_WorkingDays>> getWorkingDays(@NotNull String id) {
+    public @NotNull BatchRequest<TD_WorkingDays> getWorkingDays(@NotNull String id) {
         return getBatch("/api/http/team-directory/profiles/id:" + id +  "/working-days", TD_WorkingDays.class);
     }
 
-    public @NotNull ApiRequest<List<TD_ProfileWorkingDays>> getWorkingDays() {
+    public @NotNull BatchRequest<TD_ProfileWorkingDays> getWorkingDays() {
         return getBatch("/api/http/team-directory/profiles/working-days", TD_ProfileWorkingDays.class);
     }
 
@@ -275,7 +925,7 @@ public class SpaceService {
         return getList("/api/http/hrm/business-entities", BusinessEntity.class);
     }
 
-    public @NotNull ApiRequest<List<BusinessEntityRelation>> getBusinessEntityRelations() {
+    public @NotNull BatchRequest<BusinessEntityRelation> getBusinessEntityRelations() {
         return getBatch("/api/http/hrm/business-entities/relations", BusinessEntityRelation.class);
     }
 
@@ -288,6 +938,63 @@ public class SpaceService {
         return getObject("/api/http/team-directory/profiles/email:" + email, TD_MemberProfile.class);
     }
 
+    /**
+     * A loader that collects profile lookups by ID and loads them together, see {@link BatchLoader}.
+     *
+     * There is no endpoint to get profiles by a list of IDs, so each batch is loaded with a bounded number
+     * of concurrent {@link #getProfile(String)} requests.
+     */
+    @SuppressWarnings("unused")
+    public @NotNull BatchLoader<String, TD_MemberProfile> newProfileLoader() {
+        return new BatchLoader<>(ids -> getEach(ids, this::getProfile), LOADER_WINDOW, LOADER_BATCH_SIZE, executor);
+    }
+
+    /**
+     * A loader that collects profile lookups by email and loads them together, see {@link #newProfileLoader()}.
+     */
+    @SuppressWarnings("unused")
+    public @NotNull BatchLoader<String, TD_MemberProfile> newProfileByEmailLoader() {
+        return new BatchLoader<>(emails -> getEach(emails, this::getMemberProfileByEmail), LOADER_WINDOW,
+                LOADER_BATCH_SIZE, executor);
+    }
+
+    /**
+     * Execute a request for each key, with a bounded number of requests in progress.
+     *
+     * @return the future values by key, without the keys whose objects were not found.
+     */
+    private <V> @NotNull CompletableFuture<Map<String, V>> getEach(@NotNull List<String> keys,
+                                                                 @NotNull Function<String, ApiRequest<V>> request) {
+        var tasks = new ArrayList<Supplier<CompletableFuture<V>>>(keys.size());
+        for (String key : keys) {
+            tasks.add(() -> {
+                var query = request.apply(key).executeAsync();
+                CompletableFuture<V> res = query.exceptionally(error -> {
+                    if (unwrap(error) instanceof ObjectNotFoundException) {
+                        return null;
+                    }
+                    throw new CompletionException(unwrap(error));
+                });
+                // cancelling a dependent future doesn't cancel the query it depends on, abort it explicitly
+                res.whenComplete((ignored, error) -> {
+                    if (error instanceof CancellationException) {
+                        query.cancel(true);
+                    }
+                });
+                return res;
+            });
+        }
+        return BoundedExecution.run(tasks, LOADER_PARALLELISM).thenApply(values -> {
+            var res = new HashMap<String, V>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (values.get(i) != null) {
+                    res.put(keys.get(i), values.get(i));
+                }
+            }
+            return res;
+        });
+    }
+
     public @NotNull ApiRequest<AvailableVacationDays> getMemberAvailableVacationDays(@NotNull String memberId) {
         return getObject("/api/http/hrm/vacations/member-available-vacation-days",
                 AvailableVacationDays.class).addParameter("member", "id:" + memberId);
@@ -330,7 +1037,7 @@ public class SpaceService {
      * @param elementType The expected list element type, e.g. `AbsenceRecord.class`.
      * @param <T> The list element type.
      */
-    public <T> @NotNull ApiRequest<List<T>> getBatch(@NotNull String endpoint, @NotNull Class<T> elementType) {
+    public <T> @NotNull BatchRequest<T> getBatch(@NotNull String endpoint, @NotNull Class<T> elementType) {
         return new BatchApiRequest<>(this, endpoint, "GET", elementType);
     }
 
@@ -346,30 +1053,108 @@ public class SpaceService {
                 .addParameter("recipient", recipient).addParameter("content", content);
     }
 
+    /**
+     * The OAuth token, shared by all requests of the service.
+     *
+     * At most one token request is in flight at any time: concurrent callers that need a new token wait for
+     * the same request. The token is also renewed in the background shortly before it expires, as long as it is
+     * being used, so that the requests don't have to wait for it.
+     */
     private class OAuthToken {
 
         private @Nullable String token = null;
-        private @Nullable LocalDateTime expires = null;
+        private @Nullable Instant expires = null;
+        private @Nullable CompletableFuture<String> refreshing = null;
+        /**
+         * Whether the token was used since it was received. An unused token isn't renewed in the background.
+         */
+        private boolean used = false;
 
         private boolean expired() {
-            return expires == null || LocalDateTime.now().compareTo(expires) > 0;
+            return expires == null || Instant.now().isAfter(expires);
+        }
+
+        /**
+         * @return the future valid token, either the current one or a new one if it has expired.
+         */
+        private synchronized @NotNull CompletableFuture<String> get() {
+            used = true;
+            if (token != null && !expired()) {
+                return CompletableFuture.completedFuture(token);
+            }
+            return refresh();
         }
 
-        private void refreshIfNeeded() throws IOException, InterruptedException {
-            if (expired()) refresh();
+        /**
+         * Replace the token rejected by the server, unless it has been replaced already.
+         *
+         * @param rejected the rejected token.
+         * @return the future new token.
+         */
+        private synchronized @NotNull CompletableFuture<String> refresh(@NotNull String rejected) {
+            if (refreshing == null && token != null && !token.equals(rejected) && !expired()) {
+                return CompletableFuture.completedFuture(token);
+            }
+            return refresh();
         }
 
-        private void refresh() throws IOException, InterruptedException {
-            var requestBuilder = HttpRequest.newBuilder()
-                    .uri(uri("/oauth/token"))
-                    .setHeader("Accept", "application/json")
-                    .method("POST",
-                            HttpRequest.BodyPublishers.ofString("grant_type=client_credentials&scope=**"))
-                    .setHeader("Content-Type", "application/x-www-form-urlencoded");
-            JsonElement response = rawJSONQuery(requestBuilder, Authorization.BASIC);
-            token = response.getAsJsonObject().get("access_token").getAsString();
-            expires = LocalDateTime.now().plus(response.getAsJsonObject().get("expires_in").getAsInt(),
-                    ChronoUnit.SECONDS);
+        private synchronized @NotNull CompletableFuture<String> refresh() {
+            if (refreshing != null) {
+                return refreshing;
+            }
+            var res = new CompletableFuture<String>();
+            refreshing = res;
+            long start = System.nanoTime();
+            var request = new SpaceTransport.Request("POST", uri("/oauth/token"), Map.of(
+                    "Accept", "application/json",
+                    "Accept-Encoding", ContentEncoding.ACCEPTED,
+                    "Content-Type", "application/x-www-form-urlencoded"),
+                    "grant_type=client_credentials&scope=**".getBytes(StandardCharsets.UTF_8));
+            // shared by all requests waiting for the token, so bound by none of their deadlines
+            var query = new Query<>(request, "/oauth/token", Authorization.BASIC, JsonParser::parseReader,
+                    Deadline.NONE);
+            attempt(query, 1, null).whenComplete((response, error) -> {
+                String newToken = null;
+                Throwable failure = error;
+                if (failure == null) {
+                    try {
+                        newToken = response.getAsJsonObject().get("access_token").getAsString();
+                        received(newToken, response.getAsJsonObject().get("expires_in").getAsLong());
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+                synchronized (this) {
+                    refreshing = null;
+                }
+                metrics.onTokenRefresh(System.nanoTime() - start, failure == null ? null : unwrap(failure));
+                if (failure != null) {
+                    res.completeExceptionally(unwrap(failure));
+                } else {
+                    res.complete(newToken);
+                }
+            });
+            return res;
+        }
+
+        private synchronized void received(@NotNull String newToken, long expiresIn) {
+            token = newToken;
+            expires = Instant.now().plusSeconds(expiresIn);
+            used = false;
+            // renew a minute before the expiration, or earlier for short-lived tokens
+            long renewIn = expiresIn - Math.min(60, expiresIn / 5);
+            CompletableFuture.delayedExecutor(renewIn, TimeUnit.SECONDS, executor).execute(() -> renew(newToken));
+        }
+
+        private void renew(@NotNull String renewed) {
+            synchronized (this) {
+                if (!used || !renewed.equals(token)) {
+                    // nobody needs the token, or it has been replaced already
+                    return;
+                }
+            }
+            LOGGER.trace("Renewing the token in the background");
+            refresh(renewed);
         }
     }
 
@@ -422,6 +1207,7 @@ public class SpaceService {
             .registerTypeAdapter(LocalDate.class, LOCAL_DATE_TYPE_ADAPTER.nullSafe())
             .registerTypeAdapter(LocalDateTime.class, LOCAL_DATE_TIME_TYPE_ADAPTER.nullSafe())
             .registerTypeAdapterFactory(CFValue.ADAPTER_FACTORY)
+            .registerTypeAdapterFactory(DatatypeAdapters.ADAPTER_FACTORY)
             .create();
 
 
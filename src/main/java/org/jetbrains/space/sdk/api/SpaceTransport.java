@@ -0,0 +1,114 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the HTTP requests of a {@link SpaceService}.
+ *
+ * The default transport is the JDK HTTP client, configured with {@link SpaceService.Builder}.
+ * An alternative transport, e.g. an in-memory one for tests and benchmarks, can be supplied with
+ * {@link SpaceService.Builder#setTransport}. The service handles the authorization, the retries, the throttling
+ * and the decoding of responses, so a transport only needs to deliver a request and return the response as is.
+ */
+public interface SpaceTransport {
+
+    /**
+     * Send the request.
+     *
+     * @return the future response, available as soon as its status and headers are received.
+     * Completes exceptionally with an IOException if the request can't be delivered.
+     * Cancelling it should abort the request, e.g. when a hedged request has lost.
+     */
+    @NotNull CompletableFuture<Response> send(@NotNull Request request);
+
+    /**
+     * The default transport over the given client, e.g. to be decorated by a custom transport.
+     *
+     * @param requestTimeout how long to wait for the response headers, null to wait indefinitely.
+     */
+    static @NotNull SpaceTransport of(@NotNull HttpClient httpClient, @Nullable Duration requestTimeout) {
+        return new JdkTransport(httpClient, requestTimeout);
+    }
+
+    /**
+     * An HTTP request. Immutable.
+     */
+    final class Request {
+        private final @NotNull String method;
+        private final @NotNull URI uri;
+        private final @NotNull Map<String, String> headers;
+        private final byte @Nullable [] body;
+
+        /**
+         * @param body the request body, null if there is none.
+         */
+        public Request(@NotNull String method, @NotNull URI uri, @NotNull Map<String, String> headers,
+                       byte @Nullable [] body) {
+            this.method = method;
+            this.uri = uri;
+            this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+            this.body = body;
+        }
+
+        public @NotNull String getMethod() {
+            return method;
+        }
+
+        public @NotNull URI getUri() {
+            return uri;
+        }
+
+        public @NotNull Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public @Nullable String getHeader(@NotNull String name) {
+            return headers.get(name);
+        }
+
+        public byte @Nullable [] getBody() {
+            return body;
+        }
+
+        /**
+         * @return a copy of this request with the header set to the value.
+         */
+        public @NotNull Request withHeader(@NotNull String name, @NotNull String value) {
+            var newHeaders = new LinkedHashMap<>(headers);
+            newHeaders.put(name, value);
+            return new Request(method, uri, newHeaders, body);
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return method + " " + uri;
+        }
+    }
+
+    /**
+     * An HTTP response.
+     */
+    interface Response {
+
+        int getStatusCode();
+
+        @NotNull HttpHeaders getHeaders();
+
+        /**
+         * @return the response body as received, i.e. possibly compressed according to "Content-Encoding".
+         * Closed by the service once the body is read or discarded.
+         */
+        @NotNull InputStream getBody();
+    }
+}
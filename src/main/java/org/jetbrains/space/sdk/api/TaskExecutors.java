@@ -0,0 +1,31 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors for the internal tasks, such as the HTTP client callbacks, the decoding of response bodies
+ * while they are being received, and the scheduled retries.
+ *
+ * On Java 21 and newer, the multi-release JAR replaces this class with the one that uses virtual threads.
+ */
+class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @return a cached pool of daemon threads, so that idle services don't prevent the JVM from exiting.
+     */
+    static @NotNull Executor newExecutor() {
+        var counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "space-sdk-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
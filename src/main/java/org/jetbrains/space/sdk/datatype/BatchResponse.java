@@ -22,7 +22,7 @@ public class BatchResponse<T> {
     public final int totalCount;
     public final @NotNull List<T> data;
 
-    private BatchResponse(@NotNull String next, int totalCount, @NotNull List<T> data) {
+    public BatchResponse(@NotNull String next, int totalCount, @NotNull List<T> data) {
         this.next = next;
         this.totalCount = totalCount;
         this.data = data;
@@ -0,0 +1,15 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+public class BooleanCFValue extends CFValue {
+
+  public BooleanCFValue(@Nullable Boolean value) {
+    super("BooleanCFValue", value, null);
+  }
+
+  @Override
+  public @Nullable Boolean getValue() {
+    return (Boolean) value;
+  }
+}
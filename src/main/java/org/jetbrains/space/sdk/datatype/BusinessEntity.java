@@ -7,7 +7,7 @@ public class BusinessEntity implements SpaceObject {
     public final TD_Location location;
     public final String name;
 
-    private BusinessEntity(String id, boolean archived, TD_Location location, String name) {
+    BusinessEntity(String id, boolean archived, TD_Location location, String name) {
         this.id = id;
         this.archived = archived;
         this.location = location;
@@ -11,8 +11,8 @@ public class BusinessEntityRelation implements SpaceObject {
     public final LocalDate since;
     public final LocalDate till;
 
-    private BusinessEntityRelation(String id, boolean archived, BusinessEntity entity, TD_MemberProfile member,
-                                   LocalDate since, LocalDate till) {
+    BusinessEntityRelation(String id, boolean archived, BusinessEntity entity, TD_MemberProfile member,
+                           LocalDate since, LocalDate till) {
         this.id = id;
         this.archived = archived;
         this.entity = entity;
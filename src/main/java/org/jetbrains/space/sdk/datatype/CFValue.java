@@ -1,25 +1,38 @@
 package org.jetbrains.space.sdk.datatype;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
+/**
+ * A custom field value. The values of the known types are decoded as the subclasses named after the types,
+ * e.g. StringCFValue, with typed values. The values of other types are decoded as they are, with maps and lists.
+ */
 public class CFValue implements SpaceObject {
 
   final @NotNull String className;
   final @Nullable Object value;
-  final @Nullable List<Object> values;
+  final @Nullable List<?> values;
 
-  protected CFValue(@NotNull String className, @Nullable Object value, @Nullable List<Object> values) {
+  protected CFValue(@NotNull String className, @Nullable Object value, @Nullable List<?> values) {
     this.className = className;
     this.value = value;
     this.values = values;
@@ -37,9 +50,15 @@ public class CFValue implements SpaceObject {
   /**
    * Try to cast this CFValue object to a more specific type based on the className field.
    *
+   * The values decoded with {@link #ADAPTER_FACTORY} already are of the most specific type.
+   *
    * @return a CFValue of a more specific type, or this.
    */
   public @NotNull CFValue cast() {
+    if (getClass() != CFValue.class) {
+      return this;
+    }
+
     if ("StringCFValue".equals(className)) {
       return new StringCFValue((String) value);
     }
@@ -51,32 +70,299 @@ public class CFValue implements SpaceObject {
     return this;
   }
 
+  /**
+   * Decodes the custom field values in a single pass, straight into the subclasses. The "className" usually comes
+   * first, otherwise the value is kept as a JSON tree until it's known.
+   */
   public static @NotNull TypeAdapterFactory ADAPTER_FACTORY = new TypeAdapterFactory() {
     @SuppressWarnings("unchecked")
     @Override
     public <T> @Nullable TypeAdapter<T> create(@NotNull Gson gson, @NotNull TypeToken<T> type) {
-      if (type.getType().equals(CFValue.class)) {
-        final TypeAdapter<CFValue> delegateAdapter = (TypeAdapter<CFValue>) gson.getDelegateAdapter(this, type);
-        return (TypeAdapter<T>) new TypeAdapter<CFValue>() {
-          @Override
-          public void write(JsonWriter out, CFValue value) throws IOException {
-            delegateAdapter.write(out, value);
-          }
+      if (CFValue.class.isAssignableFrom(type.getRawType())) {
+        return (TypeAdapter<T>) new Adapter(gson, (Class<? extends CFValue>) type.getRawType());
+      } else {
+        return null;
+      }
+    }
+  };
 
-          @Override
-          public @Nullable CFValue read(JsonReader in) throws IOException {
-            final CFValue raw = delegateAdapter.read(in);
-            if (raw != null) {
-              return raw.cast();
+  /**
+   * Decodes the "value" or the "values" of the custom field values of a known type.
+   */
+  private static class Payload<P> {
+    private final @NotNull String field;
+    private final @NotNull TypeAdapter<P> adapter;
+    private final @NotNull Function<P, CFValue> create;
+    private final @NotNull Function<CFValue, P> extract;
+
+    private Payload(@NotNull String field, @NotNull TypeAdapter<P> adapter, @NotNull Function<P, CFValue> create,
+                    @NotNull Function<CFValue, P> extract) {
+      this.field = field;
+      this.adapter = adapter;
+      this.create = create;
+      this.extract = extract;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> @NotNull Payload<P> value(@NotNull TypeAdapter<P> adapter, @NotNull Function<P, CFValue> create) {
+      return new Payload<>("value", adapter, create, value -> (P) value.value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> @NotNull Payload<P> values(@NotNull TypeAdapter<P> adapter, @NotNull Function<P, CFValue> create) {
+      return new Payload<>("values", adapter, create, value -> (P) value.values);
+    }
+
+    private @NotNull CFValue read(@NotNull JsonReader in) throws IOException {
+      return create.apply(adapter.read(in));
+    }
+
+    private @NotNull CFValue fromJsonTree(@NotNull JsonElement element) {
+      return create.apply(adapter.fromJsonTree(element));
+    }
+
+    private void write(@NotNull JsonWriter out, @NotNull CFValue value) throws IOException {
+      out.name(field);
+      adapter.write(out, extract.apply(value));
+    }
+  }
+
+  /**
+   * The "value" of an enum custom field, with the "id" and the "value".
+   */
+  private static final TypeAdapter<EnumCFValue> ENUM_ADAPTER = new TypeAdapter<>() {
+    @Override
+    public void write(@NotNull JsonWriter out, @Nullable EnumCFValue value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("id").value(value.getId());
+      out.name("value").value(value.getValue());
+      out.endObject();
+    }
+
+    @Override
+    public @Nullable EnumCFValue read(@NotNull JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      String id = null;
+      String value = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            id = nextString(in);
+            break;
+          case "value":
+            value = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new EnumCFValue(id, value);
+    }
+  };
+
+  /**
+   * A date read as the adapter of its type reads it, and written as Space sends it, e.g. {"iso": "2020-01-31"}.
+   */
+  private static class IsoAdapter<T> extends TypeAdapter<T> {
+    private final @NotNull TypeAdapter<T> delegate;
+
+    private IsoAdapter(@NotNull TypeAdapter<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(@NotNull JsonWriter out, @Nullable T value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("iso").value(value.toString());
+      out.endObject();
+    }
+
+    @Override
+    public @Nullable T read(@NotNull JsonReader in) throws IOException {
+      return delegate.read(in);
+    }
+  }
+
+  private static @Nullable String nextString(@NotNull JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextString();
+  }
+
+  private static class Adapter extends TypeAdapter<CFValue> {
+
+    private final @NotNull Class<? extends CFValue> type;
+    private final @NotNull Map<String, Payload<?>> payloads = new HashMap<>();
+    private final @NotNull TypeAdapter<Object> objectAdapter;
+    private final @NotNull TypeAdapter<List<Object>> listAdapter;
+    private final @NotNull TypeAdapter<JsonElement> treeAdapter;
+
+    @SuppressWarnings("unchecked")
+    private Adapter(@NotNull Gson gson, @NotNull Class<? extends CFValue> type) {
+      this.type = type;
+      payloads.put("StringCFValue", Payload.value(gson.getAdapter(String.class), StringCFValue::new));
+      payloads.put("IntCFValue", Payload.value(gson.getAdapter(Integer.class), IntCFValue::new));
+      payloads.put("BooleanCFValue", Payload.value(gson.getAdapter(Boolean.class), BooleanCFValue::new));
+      payloads.put("DateCFValue", Payload.value(new IsoAdapter<>(gson.getAdapter(LocalDate.class)), DateCFValue::new));
+      payloads.put("DateTimeCFValue",
+              Payload.value(new IsoAdapter<>(gson.getAdapter(LocalDateTime.class)), DateTimeCFValue::new));
+      // the value of an enum custom field is the enum value itself
+      payloads.put("EnumCFValue", new Payload<>("value", ENUM_ADAPTER,
+              value -> value != null ? value : new EnumCFValue(null, (String) null), value -> (EnumCFValue) value));
+      payloads.put("StringListCFValue", Payload.values(
+              (TypeAdapter<List<String>>) gson.getAdapter(TypeToken.getParameterized(List.class, String.class)),
+              StringListCFValue::new));
+      payloads.put("IntListCFValue", Payload.values(
+              (TypeAdapter<List<Integer>>) gson.getAdapter(TypeToken.getParameterized(List.class, Integer.class)),
+              IntListCFValue::new));
+      payloads.put("EnumListCFValue", Payload.values(new ListAdapter<>(ENUM_ADAPTER), EnumListCFValue::new));
+      objectAdapter = gson.getAdapter(Object.class);
+      listAdapter = (TypeAdapter<List<Object>>) gson.getAdapter(TypeToken.getParameterized(List.class, Object.class));
+      treeAdapter = gson.getAdapter(JsonElement.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void write(@NotNull JsonWriter out, @Nullable CFValue value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("className").value(value.className);
+      var payload = payloads.get(value.className);
+      if (payload != null && value.getClass() != CFValue.class) {
+        payload.write(out, value);
+      } else {
+        out.name("value");
+        objectAdapter.write(out, value.value);
+        out.name("values");
+        listAdapter.write(out, (List<Object>) value.values);
+      }
+      out.endObject();
+    }
+
+    @Override
+    public @Nullable CFValue read(@NotNull JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      String className = null;
+      CFValue res = null;
+      // only for the types without a payload of their own
+      Object value = null;
+      List<Object> values = null;
+      // the value and the values received before the "className"
+      JsonElement bufferedValue = null;
+      JsonElement bufferedValues = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if (name.equals("className")) {
+          className = in.nextString();
+        } else if (!name.equals("value") && !name.equals("values")) {
+          in.skipValue();
+        } else if (className == null) {
+          if (name.equals("value")) {
+            bufferedValue = treeAdapter.read(in);
+          } else {
+            bufferedValues = treeAdapter.read(in);
+          }
+        } else {
+          var payload = payloads.get(className);
+          if (payload == null) {
+            if (name.equals("value")) {
+              value = objectAdapter.read(in);
             } else {
-              return null;
+              values = listAdapter.read(in);
             }
+          } else if (payload.field.equals(name)) {
+            res = payload.read(in);
+          } else {
+            in.skipValue();
           }
-        };
+        }
+      }
+      in.endObject();
+
+      if (className == null) {
+        throw new JsonSyntaxException("no className in a custom field value at " + in.getPath());
+      }
+      var payload = payloads.get(className);
+      if (payload != null) {
+        if (res == null) {
+          JsonElement buffered = payload.field.equals("value") ? bufferedValue : bufferedValues;
+          res = payload.fromJsonTree(buffered != null ? buffered : JsonNull.INSTANCE);
+        }
       } else {
-        return null;
+        if (bufferedValue != null) {
+          value = objectAdapter.fromJsonTree(bufferedValue);
+        }
+        if (bufferedValues != null) {
+          values = listAdapter.fromJsonTree(bufferedValues);
+        }
+        res = new CFValue(className, value, values);
+      }
+      if (!type.isInstance(res)) {
+        throw new JsonSyntaxException("expected " + type.getSimpleName() + " but got " + className + " at "
+                + in.getPath());
       }
+      return res;
+    }
+  }
+
+  /**
+   * A list of the elements decoded with an adapter that isn't registered with Gson.
+   */
+  private static class ListAdapter<E> extends TypeAdapter<List<E>> {
+    private final @NotNull TypeAdapter<E> elementAdapter;
 
+    private ListAdapter(@NotNull TypeAdapter<E> elementAdapter) {
+      this.elementAdapter = elementAdapter;
     }
-  };
+
+    @Override
+    public void write(@NotNull JsonWriter out, @Nullable List<E> value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (E element : value) {
+        elementAdapter.write(out, element);
+      }
+      out.endArray();
+    }
+
+    @Override
+    public @Nullable List<E> read(@NotNull JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      var res = new ArrayList<E>();
+      in.beginArray();
+      while (in.hasNext()) {
+        res.add(elementAdapter.read(in));
+      }
+      in.endArray();
+      return res;
+    }
+  }
 }
@@ -1,28 +1,43 @@
 package org.jetbrains.space.sdk.datatype;
 
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.space.sdk.fields.DatatypeStructure;
 import org.jetbrains.space.sdk.fields.LiteralObjectStructure;
 import org.jetbrains.space.sdk.fields.ReferenceStructure;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Finds the structure of a SpaceObject type.
+ *
+ * The structures of the SDK types are generated at build time, see DatatypeStructureProcessor. The structures of
+ * other types, e.g. user-defined ones, are discovered by reflection on first use: the public instance fields of
+ * a type are its fields, and a type with an "id" field is a reference.
+ */
 public class DatatypeStructureDiscovery {
 
   private DatatypeStructureDiscovery() {} // singleton
 
-  private static final Map<Type, DatatypeStructure> visited = new HashMap<>();
+  /**
+   * The structures discovered at runtime. Only complete structures are published here.
+   */
+  private static final Map<Class<?>, DatatypeStructure> discovered = new ConcurrentHashMap<>();
 
   public static DatatypeStructure structure(Type type) {
+    return structure(type, null);
+  }
 
-    if (visited.containsKey(type)) {
-      return visited.get(type);
-    }
-
+  /**
+   * @param visited the structures being discovered, null if not discovering.
+   */
+  private static DatatypeStructure structure(Type type, @Nullable Map<Class<?>, DatatypeStructure> visited) {
     Class<?> clazz;
     if (type instanceof Class<?>) {
       // a raw type, cast to Class
@@ -31,10 +46,9 @@ public class DatatypeStructureDiscovery {
       clazz = (Class<?>) ((ParameterizedType) type).getRawType();
       if (clazz.equals(List.class)) {
         // a generic list! let's investigate the type of the generic argument recursively
-        return structure(((ParameterizedType) type).getActualTypeArguments()[0]);
+        return structure(((ParameterizedType) type).getActualTypeArguments()[0], visited);
       } else if (clazz.equals(Map.class)) {
         // a map! we can't go further
-        visited.put(type, DatatypeStructure.PRIMITIVE);
         return DatatypeStructure.PRIMITIVE;
       } else {
         // we can only investigate lists
@@ -46,14 +60,36 @@ public class DatatypeStructureDiscovery {
 
     if (!SpaceObject.class.isAssignableFrom(clazz)) {
       // a primitive!
-      visited.put(type, DatatypeStructure.PRIMITIVE);
       return DatatypeStructure.PRIMITIVE;
     }
 
+    DatatypeStructure res = DatatypeStructures.STRUCTURES.get(clazz);
+    if (res == null) {
+      res = discovered.get(clazz);
+    }
+    if (res != null) {
+      return res;
+    }
+    if (visited != null) {
+      res = visited.get(clazz);
+      return res != null ? res : discover(clazz, visited);
+    }
+    // the structures are filled while being discovered, so they are only published when complete
+    synchronized (discovered) {
+      res = discovered.get(clazz);
+      if (res == null) {
+        visited = new HashMap<>();
+        res = discover(clazz, visited);
+        discovered.putAll(visited);
+      }
+      return res;
+    }
+  }
+
+  private static DatatypeStructure discover(Class<?> clazz, Map<Class<?>, DatatypeStructure> visited) {
     boolean isReference;
     try {
-      clazz.getField("id");
-      isReference = true;
+      isReference = !Modifier.isStatic(clazz.getField("id").getModifiers());
     } catch (NoSuchFieldException ignore) {
       isReference = false;
     }
@@ -69,7 +105,9 @@ public class DatatypeStructureDiscovery {
 
     Field[] fields = clazz.getFields();
     for (Field field : fields) {
-      fieldMap.put(field.getName(), structure(field.getGenericType()));
+      if (!Modifier.isStatic(field.getModifiers())) {
+        fieldMap.put(field.getName(), structure(field.getGenericType(), visited));
+      }
     }
     return res;
   }
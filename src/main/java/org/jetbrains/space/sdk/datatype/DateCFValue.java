@@ -0,0 +1,17 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+
+public class DateCFValue extends CFValue {
+
+  public DateCFValue(@Nullable LocalDate value) {
+    super("DateCFValue", value, null);
+  }
+
+  @Override
+  public @Nullable LocalDate getValue() {
+    return (LocalDate) value;
+  }
+}
@@ -0,0 +1,17 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDateTime;
+
+public class DateTimeCFValue extends CFValue {
+
+  public DateTimeCFValue(@Nullable LocalDateTime value) {
+    super("DateTimeCFValue", value, null);
+  }
+
+  @Override
+  public @Nullable LocalDateTime getValue() {
+    return (LocalDateTime) value;
+  }
+}
@@ -1,20 +1,35 @@
 package org.jetbrains.space.sdk.datatype;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Map;
 
 public class EnumCFValue extends CFValue {
 
-  public EnumCFValue(Map<String, String> value) {
+  private final @Nullable String id;
+
+  public EnumCFValue(@Nullable String id, @Nullable String value) {
     super("EnumCFValue", value, null);
+    this.id = id;
   }
 
-  @Override
-  public String getValue() {
-    if (value == null) return null;
+  /**
+   * @param value the enum value as received, with the "id" and the "value".
+   */
+  public EnumCFValue(@Nullable Map<String, String> value) {
+    this(value == null ? null : value.get("id"), value == null ? null : value.get("value"));
+  }
 
-    if (value instanceof Map) return ((Map<String, String>) value).get("value");
+  /**
+   * @return the ID of the enum value.
+   */
+  public @Nullable String getId() {
+    return id;
+  }
 
-    return null;
+  @Override
+  public @Nullable String getValue() {
+    return (String) value;
   }
 
 }
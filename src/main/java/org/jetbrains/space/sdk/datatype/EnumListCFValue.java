@@ -0,0 +1,21 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A multiple-choice custom field value: the chosen enum values, each with its ID and value.
+ */
+public class EnumListCFValue extends CFValue {
+
+  public EnumListCFValue(@Nullable List<EnumCFValue> values) {
+    super("EnumListCFValue", null, values);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public @Nullable List<EnumCFValue> getValues() {
+    return (List<EnumCFValue>) values;
+  }
+}
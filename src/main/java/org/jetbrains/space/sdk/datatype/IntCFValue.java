@@ -0,0 +1,15 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+public class IntCFValue extends CFValue {
+
+  public IntCFValue(@Nullable Integer value) {
+    super("IntCFValue", value, null);
+  }
+
+  @Override
+  public @Nullable Integer getValue() {
+    return (Integer) value;
+  }
+}
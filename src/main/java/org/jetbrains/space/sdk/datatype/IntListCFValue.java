@@ -0,0 +1,18 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+public class IntListCFValue extends CFValue {
+
+  public IntListCFValue(@Nullable List<Integer> values) {
+    super("IntListCFValue", null, values);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public @Nullable List<Integer> getValues() {
+    return (List<Integer>) values;
+  }
+}
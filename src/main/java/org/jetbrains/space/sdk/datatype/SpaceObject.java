@@ -3,7 +3,9 @@ package org.jetbrains.space.sdk.datatype;
 /**
  * The common ancestor of all non-primitive Space API response entities.
  *
- * Necessary for the automatic structure discovery via DatatypeStructureDiscovery.structure.
+ * Necessary for the automatic structure discovery via DatatypeStructureDiscovery.structure. The structures and
+ * the Gson type adapters of the SDK types are generated at build time, see DatatypeAdapters, while other types are
+ * discovered and deserialized by reflection.
  */
 public interface SpaceObject { }
 
@@ -0,0 +1,18 @@
+package org.jetbrains.space.sdk.datatype;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+public class StringListCFValue extends CFValue {
+
+  public StringListCFValue(@Nullable List<String> values) {
+    super("StringListCFValue", null, values);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public @Nullable List<String> getValues() {
+    return (List<String>) values;
+  }
+}
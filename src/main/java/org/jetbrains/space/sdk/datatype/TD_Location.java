@@ -11,10 +11,14 @@ public class TD_Location implements SpaceObject {
   public final String type;
 
   public TD_Location() {
-    id = null;
-    name = null;
-    parent = null;
-    type = null;
+    this(null, null, null, null);
+  }
+
+  TD_Location(String id, String name, TD_Location parent, String type) {
+    this.id = id;
+    this.name = name;
+    this.parent = parent;
+    this.type = type;
   }
 
   public boolean isAncestorOrSelf(@NotNull String id) {
@@ -13,8 +13,8 @@ public class TD_MemberLocation implements SpaceObject, TimeRanged {
   public final LocalDate since;
   public final LocalDate till;
 
-  private TD_MemberLocation(String id, Boolean archived, TD_Location location,
-                            TD_MemberProfile member, LocalDate since, LocalDate till) {
+  TD_MemberLocation(String id, Boolean archived, TD_Location location,
+                    TD_MemberProfile member, LocalDate since, LocalDate till) {
     this.id = id;
     this.archived = archived;
     this.location = location;
@@ -27,24 +27,34 @@ public class TD_MemberProfile implements SpaceObject {
   public final String externalId;
 
   public TD_MemberProfile(String id, TD_ProfileName name) {
+    this(id, null, name, null, null, null, null, null, null, null, null, null, null, null, null, null, null, false,
+      null);
+  }
+
+  TD_MemberProfile(String id, String username, TD_ProfileName name, TD_Location location,
+                   List<TD_MemberLocation> locations, LocalDate joined, LocalDateTime leftAt, LocalDate birthday,
+                   String gender, String profilePicture, String avatar, String smallAvatar, String about,
+                   List<TD_MemberProfile> managers, List<TD_Membership> memberships, List<TD_ProfileEmail> emails,
+                   Map<String, CFValue> customFields, boolean notAMember, String externalId) {
     this.id = id;
+    this.username = username;
     this.name = name;
-
-    location = null;
-    locations = null;
-    joined = null;
-    leftAt = null;
-    profilePicture = avatar = smallAvatar = null;
-    about = null;
-    managers = null;
-    emails = null;
-    customFields = null;
-    username = null;
-    memberships = null;
-    birthday = null;
-    gender = null;
-    notAMember = false;
-    externalId = null;
+    this.location = location;
+    this.locations = locations;
+    this.joined = joined;
+    this.leftAt = leftAt;
+    this.birthday = birthday;
+    this.gender = gender;
+    this.profilePicture = profilePicture;
+    this.avatar = avatar;
+    this.smallAvatar = smallAvatar;
+    this.about = about;
+    this.managers = managers;
+    this.memberships = memberships;
+    this.emails = emails;
+    this.customFields = customFields;
+    this.notAMember = notAMember;
+    this.externalId = externalId;
   }
 
   public @Nullable TD_MemberLocation findLocationForDate(LocalDate date) {
@@ -0,0 +1,90 @@
+package org.jetbrains.space.sdk.fields;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable field specifications, rendered once for all the requests they are sent with.
+ *
+ * Obtained with {@link FieldSpecs#compile}. The fields are rendered in the canonical order, so that equivalent
+ * specifications render and compare equal regardless of the order the fields were added in. Can be shared
+ * between requests and threads.
+ */
+public final class CompiledFieldSpecs {
+
+    /**
+     * A deep copy of the original specifications with unmodifiable maps, never modified.
+     */
+    private final @NotNull FieldSpecs specs;
+    private final @NotNull String rendered;
+    private final @NotNull String encoded;
+
+    CompiledFieldSpecs(@NotNull FieldSpecs specs) {
+        this.specs = specs;
+        rendered = specs.toString();
+        encoded = URLEncoder.encode(rendered, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return whether the specifications are equivalent to "*".
+     */
+    public boolean isWildcard() {
+        return specs.isWildcard();
+    }
+
+    /**
+     * @see FieldSpecs#fieldWillBeSerialized(String, String...)
+     */
+    public boolean fieldWillBeSerialized(@NotNull String fieldName, @NotNull String... fieldNames) {
+        return specs.fieldWillBeSerialized(fieldName, fieldNames);
+    }
+
+    /**
+     * Unlike the check by names, looks the path up by the IDs of the fields.
+     *
+     * @see FieldSpecs#fieldWillBeSerialized(FieldPath)
+     */
+    public boolean fieldWillBeSerialized(@NotNull FieldPath path) {
+        return specs.fieldWillBeSerialized(path);
+    }
+
+    /**
+     * @return the field sequence resolved against the structure of these specifications.
+     */
+    public @NotNull FieldPath path(@NotNull String fieldName, @NotNull String... fieldNames) {
+        return specs.path(fieldName, fieldNames);
+    }
+
+    /**
+     * @param other specifications for the same structure.
+     * @return whether every field serialized under the other specifications will also be serialized under these ones.
+     */
+    public boolean covers(@NotNull CompiledFieldSpecs other) {
+        return equals(other) || specs.covers(other.specs);
+    }
+
+    /**
+     * @return the rendered specifications, URL-encoded as a query parameter value.
+     */
+    public @NotNull String getEncoded() {
+        return encoded;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return rendered;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        return o instanceof CompiledFieldSpecs && rendered.equals(((CompiledFieldSpecs) o).rendered);
+    }
+
+    @Override
+    public int hashCode() {
+        return rendered.hashCode();
+    }
+}
@@ -3,6 +3,7 @@ package org.jetbrains.space.sdk.fields;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Describes a structure of a Space HTTP API object.
@@ -23,6 +24,30 @@ public interface DatatypeStructure {
 
     @NotNull DatatypeStructure getField(String fieldName, String... fieldNames);
 
+    /**
+     * @return the names of all immediate fields.
+     */
+    @NotNull Set<String> fieldNames();
+
+    /**
+     * The immediate fields can also be looked up by ID, which is cheaper than by name when a path is traversed
+     * many times, see {@link FieldPath}. The IDs are small non-negative integers, unique within the structure.
+     *
+     * @return the ID of the immediate field, or -1 if there is no such field.
+     */
+    int fieldId(@NotNull String fieldName);
+
+    /**
+     * @param fieldId the ID of an immediate field.
+     */
+    @NotNull DatatypeStructure getField(int fieldId);
+
+    /**
+     * @param fieldId the ID of an immediate field.
+     * @return whether the field will be serialized if the parent spec is "*".
+     */
+    boolean wildcardSerializable(int fieldId);
+
     /**
      * A primitive is an entity whose fields, if any, cannot be specified in a request.
      *
@@ -44,6 +69,26 @@ public interface DatatypeStructure {
         public @NotNull DatatypeStructure getField(String fieldName, String... fieldNames) {
             throw new NoSuchElementException();
         }
+
+        @Override
+        public @NotNull Set<String> fieldNames() {
+            return Set.of();
+        }
+
+        @Override
+        public int fieldId(@NotNull String fieldName) {
+            return -1;
+        }
+
+        @Override
+        public @NotNull DatatypeStructure getField(int fieldId) {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public boolean wildcardSerializable(int fieldId) {
+            throw new NoSuchElementException();
+        }
     };
 
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.jetbrains.space.sdk.fields;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A field sequence resolved against a structure, e.g. "member", "location", "name", for repeated checks.
+ *
+ * The fields are resolved to their IDs and structures once, so checking the path against field specifications
+ * doesn't look the names up in the structures or allocate anything. Immutable, can be shared between threads.
+ *
+ * Obtained with {@link FieldSpecs#path} or {@link CompiledFieldSpecs#path}, or with {@link #of} for any structure.
+ */
+public final class FieldPath {
+
+    private final @NotNull DatatypeStructure root;
+    private final @NotNull String @NotNull [] names;
+    /**
+     * The IDs of the fields in their structures, and the structures they belong to, starting with the root.
+     */
+    private final int @NotNull [] ids;
+    private final @NotNull DatatypeStructure @NotNull [] structures;
+    /**
+     * The number of leading fields the structure has.
+     */
+    private final int resolved;
+
+    private FieldPath(@NotNull DatatypeStructure root, @NotNull String @NotNull [] names) {
+        this.root = root;
+        this.names = names;
+        ids = new int[names.length];
+        structures = new DatatypeStructure[names.length];
+        int level = 0;
+        DatatypeStructure current = root;
+        for (; level < names.length; level++) {
+            int id = current.fieldId(names[level]);
+            if (id < 0) {
+                break;
+            }
+            ids[level] = id;
+            structures[level] = current;
+            current = current.getField(id);
+        }
+        resolved = level;
+    }
+
+    /**
+     * @param structure  the structure to resolve the fields against.
+     * @param fieldName  the immediate field name.
+     * @param fieldNames the nested field sequence, if any.
+     * @return the resolved path, even if the structure doesn't have the fields.
+     */
+    public static @NotNull FieldPath of(@NotNull DatatypeStructure structure, @NotNull String fieldName,
+                                        @NotNull String... fieldNames) {
+        String[] names = new String[fieldNames.length + 1];
+        names[0] = fieldName;
+        System.arraycopy(fieldNames, 0, names, 1, fieldNames.length);
+        return new FieldPath(structure, names);
+    }
+
+    /**
+     * @return the structure the path was resolved against.
+     */
+    public @NotNull DatatypeStructure getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of fields in the path.
+     */
+    public int length() {
+        return names.length;
+    }
+
+    public @NotNull String getName(int level) {
+        return names[level];
+    }
+
+    /**
+     * @return whether the structure has the fields.
+     */
+    public boolean exists() {
+        return resolved == names.length;
+    }
+
+    /**
+     * @return the ID of the field at the level in its structure, only for an existing path.
+     */
+    int getId(int level) {
+        return ids[level];
+    }
+
+    /**
+     * @return the structure the field at the level belongs to, only for an existing path.
+     */
+    @NotNull DatatypeStructure getStructure(int level) {
+        return structures[level];
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return String.join(".", names);
+    }
+}
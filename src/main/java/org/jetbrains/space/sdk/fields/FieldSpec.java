@@ -14,6 +14,10 @@ public class FieldSpec {
         return nested;
     }
 
+    boolean isRecursive() {
+        return recursive;
+    }
+
     FieldSpec(@NotNull FieldSpecs nested, boolean recursive) {
         this.nested = nested;
         this.recursive = recursive;
@@ -21,12 +25,18 @@ public class FieldSpec {
 
     @Override
     public @NotNull String toString() {
+        var res = new StringBuilder();
+        render(res);
+        return res.toString();
+    }
+
+    void render(@NotNull StringBuilder res) {
         if (recursive) {
-            return "!";
-        }
-        if (nested.isWildcard()) {
-            return "";
+            res.append('!');
+        } else if (!nested.isWildcard()) {
+            res.append('(');
+            nested.render(res);
+            res.append(')');
         }
-        return "(" + nested.toString() + ")";
     }
 }
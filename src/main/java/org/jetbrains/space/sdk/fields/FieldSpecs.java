@@ -1,6 +1,7 @@
 package org.jetbrains.space.sdk.fields;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -27,10 +28,21 @@ public class FieldSpecs {
      */
     private final @NotNull DatatypeStructure structure;
 
+    /**
+     * The named fields by their IDs in the structure, only for frozen specifications, which never change.
+     */
+    private final @Nullable FieldSpec @Nullable [] specsById;
+
     public FieldSpecs(boolean wildcard, @NotNull Map<String, FieldSpec> specs, @NotNull DatatypeStructure structure) {
+        this(wildcard, specs, structure, null);
+    }
+
+    private FieldSpecs(boolean wildcard, @NotNull Map<String, FieldSpec> specs, @NotNull DatatypeStructure structure,
+                       @Nullable FieldSpec @Nullable [] specsById) {
         this.wildcard = wildcard;
         this.specs = specs;
         this.structure = structure;
+        this.specsById = specsById;
     }
 
     /**
@@ -40,16 +52,30 @@ public class FieldSpecs {
         return wildcard && specs.isEmpty();
     }
 
+    /**
+     * @return the specifications as the "$fields" parameter value, with the named fields in alphabetical order.
+     */
     @Override
     public @NotNull String toString() {
-        var res = new ArrayList<String>();
+        var res = new StringBuilder();
+        render(res);
+        return res.toString();
+    }
+
+    void render(@NotNull StringBuilder res) {
+        int start = res.length();
         if (wildcard) {
-            res.add("*");
+            res.append('*');
         }
-        for (var entry : specs.entrySet()) {
-            res.add(entry.getKey() + entry.getValue().toString());
+        // a frozen copy is already sorted
+        var names = specs instanceof SortedMap ? specs.keySet() : new TreeSet<>(specs.keySet());
+        for (String name : names) {
+            if (res.length() > start) {
+                res.append(',');
+            }
+            res.append(name);
+            specs.get(name).render(res);
         }
-        return String.join(",", res);
     }
 
 
@@ -63,47 +89,290 @@ public class FieldSpecs {
         if (!structure.hasField(fieldName, fieldNames)) {
             return false;
         }
-        if (specs.containsKey(fieldName)) {
-            var fieldSpec = specs.get(fieldName);
+        FieldSpecs current = this;
+        String name = fieldName;
+        for (int i = 0; ; i++) {
+            var fieldSpec = current.specs.get(name);
+            if (fieldSpec == null) {
+                // no named specs found, check wildcard, which serializes all immediate subfields
+                return current.wildcard && wildcardSerializable(
+                        current.structure.getField(current.structure.fieldId(name)), fieldNames, i);
+            }
+            if (i == fieldNames.length) {
+                return true;
+            }
+            current = fieldSpec.getNested();
+            name = fieldNames[i];
+        }
+    }
+
+    /**
+     * @param structure the structure of a field serialized by a wildcard.
+     * @param from      the position of the subfield sequence in the field names.
+     * @return whether the wildcard serializes the subfield sequence too.
+     */
+    private static boolean wildcardSerializable(@NotNull DatatypeStructure structure, @NotNull String[] fieldNames,
+                                                int from) {
+        DatatypeStructure current = structure;
+        for (int i = from; i < fieldNames.length; i++) {
+            int id = current.fieldId(fieldNames[i]);
+            if (id < 0 || !current.wildcardSerializable(id)) {
+                return false;
+            }
+            current = current.getField(id);
+        }
+        return true;
+    }
 
-            if (fieldNames.length == 0) {
+    /**
+     * @param path the field sequence, resolved against the structure of these specifications.
+     * @return whether the field will be serialized under the current specifications.
+     */
+    public boolean fieldWillBeSerialized(@NotNull FieldPath path) {
+        if (path.getRoot() != structure) {
+            throw new IllegalArgumentException("the path " + path + " is resolved against a different structure");
+        }
+        if (!path.exists()) {
+            return false;
+        }
+        FieldSpecs current = this;
+        for (int level = 0; level < path.length(); level++) {
+            var fieldSpec = current.specsById != null
+                    ? current.specsById[path.getId(level)]
+                    : current.specs.get(path.getName(level));
+            if (fieldSpec == null) {
+                if (!current.wildcard) {
+                    return false;
+                }
+                // the rest of the path is up to the wildcard
+                for (int rest = level + 1; rest < path.length(); rest++) {
+                    if (!path.getStructure(rest).wildcardSerializable(path.getId(rest))) {
+                        return false;
+                    }
+                }
                 return true;
             }
-            String subfield = fieldNames[0];
-            String[] subfields = new String[fieldNames.length - 1];
-            System.arraycopy(fieldNames, 1, subfields, 0, subfields.length);
-            return fieldSpec.getNested().fieldWillBeSerialized(subfield, subfields);
+            current = fieldSpec.getNested();
         }
-        // no named specs found, check wildcard
-        if (wildcard) {
-            if (fieldNames.length == 0) {
-                return true; // wildcard serializes all immediate subfields
+        return true;
+    }
+
+    /**
+     * @return the field sequence resolved against the structure of these specifications.
+     */
+    public @NotNull FieldPath path(@NotNull String fieldName, @NotNull String... fieldNames) {
+        return FieldPath.of(structure, fieldName, fieldNames);
+    }
+
+    /**
+     * @return an independent copy of the current specifications, not affected by any fields added later.
+     */
+    public @NotNull FieldSpecs copy() {
+        var specsCopy = new HashMap<String, FieldSpec>();
+        for (var entry : specs.entrySet()) {
+            var fieldSpec = entry.getValue();
+            specsCopy.put(entry.getKey(), new FieldSpec(fieldSpec.getNested().copy(), fieldSpec.isRecursive()));
+        }
+        return new FieldSpecs(wildcard, specsCopy, structure);
+    }
+
+    /**
+     * @return an immutable copy of the current specifications, rendered in the canonical order.
+     */
+    public @NotNull CompiledFieldSpecs compile() {
+        return new CompiledFieldSpecs(freeze());
+    }
+
+    /**
+     * @return a deep copy with unmodifiable, sorted maps, and the named fields indexed by ID.
+     */
+    private @NotNull FieldSpecs freeze() {
+        var frozen = new TreeMap<String, FieldSpec>();
+        var frozenById = new FieldSpec[structure.fieldNames().size()];
+        for (var entry : specs.entrySet()) {
+            var fieldSpec = entry.getValue();
+            var frozenSpec = new FieldSpec(fieldSpec.getNested().freeze(), fieldSpec.isRecursive());
+            frozen.put(entry.getKey(), frozenSpec);
+            frozenById[structure.fieldId(entry.getKey())] = frozenSpec;
+        }
+        return new FieldSpecs(wildcard, Collections.unmodifiableSortedMap(frozen), structure, frozenById);
+    }
+
+    /**
+     * @param other specifications for the same structure.
+     * @return whether every field serialized under the other specifications will also be serialized under these ones.
+     */
+    public boolean covers(@NotNull FieldSpecs other) {
+        return covers(other, new ArrayList<>());
+    }
+
+    /**
+     * @param other the nested specifications at the given path.
+     * @param path  the field sequence from the root of these specifications.
+     */
+    private boolean covers(@NotNull FieldSpecs other, @NotNull List<String> path) {
+        for (String fieldName : other.structure.fieldNames()) {
+            path.add(fieldName);
+            try {
+                var otherSpec = other.specs.get(fieldName);
+                if (otherSpec == null) {
+                    if (other.wildcard && !coversWildcard(other.structure.getField(fieldName), path)) {
+                        return false;
+                    }
+                } else if (otherSpec.isRecursive()) {
+                    // recursive fields can't be enumerated, only a recursive field covers another one
+                    var fieldSpec = nestedSpec(path);
+                    if (fieldSpec == null || !fieldSpec.isRecursive()) {
+                        return false;
+                    }
+                } else if (!fieldWillBeSerialized(path) || !covers(otherSpec.getNested(), path)) {
+                    return false;
+                }
+            } finally {
+                path.remove(path.size() - 1);
             }
-            String subfield = fieldNames[0];
-            String[] subfields = Arrays.copyOfRange(fieldNames, 1, fieldNames.length);
-            return structure.getField(fieldName).wildcardSerializable(subfield, subfields);
         }
-        return false;
+        return true;
+    }
+
+    /**
+     * @return whether the field at the path is serialized together with everything a wildcard serializes in it.
+     */
+    private boolean coversWildcard(@NotNull DatatypeStructure fieldStructure, @NotNull List<String> path) {
+        if (!fieldWillBeSerialized(path)) {
+            return false;
+        }
+        for (String subfield : fieldStructure.fieldNames()) {
+            if (!fieldStructure.wildcardSerializable(subfield)) {
+                continue;
+            }
+            path.add(subfield);
+            try {
+                if (!coversWildcard(fieldStructure.getField(subfield), path)) {
+                    return false;
+                }
+            } finally {
+                path.remove(path.size() - 1);
+            }
+        }
+        return true;
+    }
+
+    private boolean fieldWillBeSerialized(@NotNull List<String> path) {
+        return fieldWillBeSerialized(path.get(0), path.subList(1, path.size()).toArray(new String[0]));
+    }
+
+    private @Nullable FieldSpec nestedSpec(@NotNull List<String> path) {
+        FieldSpecs current = this;
+        FieldSpec res = null;
+        for (String fieldName : path) {
+            if (res != null) {
+                current = res.getNested();
+            }
+            res = current.specs.get(fieldName);
+            if (res == null) {
+                return null;
+            }
+        }
+        return res;
     }
 
     private void addField(boolean recursive, @NotNull String fieldName, @NotNull String... fieldNames) {
         if (!structure.hasField(fieldName, fieldNames)) {
             throw new NoSuchElementException(fieldNames.length > 0 ? fieldNames[fieldNames.length - 1] : fieldName);
         }
-        FieldSpec fieldSpec;
+        FieldSpecs current = this;
+        String name = fieldName;
+        for (int i = 0; ; i++) {
+            // only the last field of the sequence is recursive
+            var fieldSpec = current.specOrNew(name, recursive && i == fieldNames.length);
+            if (i == fieldNames.length) {
+                return;
+            }
+            current = fieldSpec.getNested();
+            name = fieldNames[i];
+        }
+    }
+
+    private @NotNull FieldSpec specOrNew(@NotNull String fieldName, boolean recursive) {
+        var res = specs.get(fieldName);
+        if (res == null) {
+            var fieldStructure = structure.getField(structure.fieldId(fieldName));
+            res = new FieldSpec(new FieldSpecs(true, new HashMap<>(), fieldStructure), recursive);
+            specs.put(fieldName, res);
+        }
+        return res;
+    }
+
+    /**
+     * Add an immediate field to the current specifications, unless it's there already, to specify its subfields.
+     * @param fieldName the immediate field name
+     * @return the specifications of the field, which are part of the current ones.
+     */
+    public @NotNull FieldSpecs addNested(@NotNull String fieldName) {
+        if (structure.fieldId(fieldName) < 0) {
+            throw new NoSuchElementException(fieldName);
+        }
+        return specOrNew(fieldName, false).getNested();
+    }
+
+    /**
+     * Add an immediate field with only the subfields a projection has, e.g. a class with a few of the fields
+     * of the field type, and no wildcard. The subfields the projection has as objects are projected in turn,
+     * the rest are serialized as a whole. A subfield of the same projection as its parent is added as recursive,
+     * while a subfield of the projection of a farther ancestor is serialized as by a wildcard, e.g. only its "id".
+     * @param fieldName  the immediate field name
+     * @param projection the structure of the projection, with the subfields named as in the field structure.
+     * @throws IllegalArgumentException if the projection doesn't match the field structure.
+     */
+    public void addProjection(@NotNull String fieldName, @NotNull DatatypeStructure projection) {
+        int id = structure.fieldId(fieldName);
+        if (id < 0) {
+            throw new NoSuchElementException(fieldName);
+        }
         if (specs.containsKey(fieldName)) {
-            fieldSpec = specs.get(fieldName);
-        } else {
-            var fieldStructure = structure.getField(fieldName);
-            fieldSpec = new FieldSpec(new FieldSpecs(true, new HashMap<>(), fieldStructure),
-                    recursive && fieldNames.length == 0);
-            specs.put(fieldName, fieldSpec);
-        }
-        if (fieldNames.length != 0) {
-            String subfield = fieldNames[0];
-            String[] subfields = Arrays.copyOfRange(fieldNames, 1, fieldNames.length);
-            fieldSpec.getNested().addField(recursive, subfield, subfields);
+            throw new IllegalStateException("the field " + fieldName + " has already been added");
+        }
+        var nested = project(structure.getField(id), projection, fieldName, new ArrayList<>());
+        specs.put(fieldName, new FieldSpec(nested, false));
+    }
+
+    /**
+     * @param path       the field sequence of the structure, for the error messages.
+     * @param projecting the projections of the enclosing fields, to stop at the cycles.
+     */
+    private static @NotNull FieldSpecs project(@NotNull DatatypeStructure structure,
+                                               @NotNull DatatypeStructure projection, @NotNull String path,
+                                               @NotNull List<DatatypeStructure> projecting) {
+        if (projection.fieldNames().isEmpty()) {
+            throw new IllegalArgumentException("the projection of " + path + " has no fields");
+        }
+        projecting.add(projection);
+        var res = new FieldSpecs(false, new HashMap<>(), structure);
+        for (String name : projection.fieldNames()) {
+            int id = structure.fieldId(name);
+            if (id < 0) {
+                throw new IllegalArgumentException(path + " has no field " + name);
+            }
+            var fieldStructure = structure.getField(id);
+            var fieldProjection = projection.getField(name);
+            FieldSpec fieldSpec;
+            if (fieldProjection != DatatypeStructure.PRIMITIVE && fieldStructure == DatatypeStructure.PRIMITIVE) {
+                throw new IllegalArgumentException(path + "." + name + " is a primitive and can't be projected");
+            } else if (fieldProjection == projection && fieldStructure == structure) {
+                // the same subfields as the parent
+                fieldSpec = new FieldSpec(new FieldSpecs(true, new HashMap<>(), fieldStructure), true);
+            } else if (fieldProjection == DatatypeStructure.PRIMITIVE || projecting.contains(fieldProjection)) {
+                // the whole field as serialized by a wildcard, which is also where a cycle of projections stops
+                fieldSpec = new FieldSpec(new FieldSpecs(true, new HashMap<>(), fieldStructure), false);
+            } else {
+                fieldSpec = new FieldSpec(project(fieldStructure, fieldProjection, path + "." + name, projecting),
+                        false);
+            }
+            res.specs.put(name, fieldSpec);
         }
+        projecting.remove(projecting.size() - 1);
+        return res;
     }
 
     /**
@@ -2,7 +2,6 @@ package org.jetbrains.space.sdk.fields;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Arrays;
 import java.util.Map;
 
 public class LiteralObjectStructure extends ObjectStructure {
@@ -13,15 +12,26 @@ public class LiteralObjectStructure extends ObjectStructure {
 
     @Override
     public boolean wildcardSerializable(@NotNull String fieldName, @NotNull String... fieldNames) {
-        if (!hasField(fieldName, fieldNames)) {
+        int id = fieldId(fieldName);
+        if (id < 0) {
             return false;
         }
-        if (fieldNames.length == 0) {
-            return true;
+        DatatypeStructure current = this;
+        for (String subfieldName : fieldNames) {
+            if (!current.wildcardSerializable(id)) {
+                return false;
+            }
+            current = current.getField(id);
+            id = current.fieldId(subfieldName);
+            if (id < 0) {
+                return false;
+            }
         }
-        var structure = getField(fieldName);
-        String subfieldName = fieldNames[0];
-        String[] subfieldNames = Arrays.copyOfRange(fieldNames, 1, fieldNames.length);
-        return structure.wildcardSerializable(subfieldName, subfieldNames);
+        return current.wildcardSerializable(id);
+    }
+
+    @Override
+    public boolean wildcardSerializable(int fieldId) {
+        return fieldId >= 0 && fieldId < fields.size();
     }
 }
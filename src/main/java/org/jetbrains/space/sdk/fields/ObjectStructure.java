@@ -1,39 +1,101 @@
 package org.jetbrains.space.sdk.fields;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public abstract class ObjectStructure implements DatatypeStructure {
 
+    /**
+     * A read-only view of the fields. The structures are shared, so only their creator fills the fields, e.g. when
+     * the structures refer to each other, and only before the structure is used.
+     */
     protected final @NotNull Map<String, DatatypeStructure> fields;
 
+    /**
+     * The fields by ID, built on the first lookup by ID. The fields must not change after that.
+     */
+    private volatile @Nullable Index index = null;
+
     public ObjectStructure(@NotNull Map<String, DatatypeStructure> fields) {
-        this.fields = fields;
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * The field names in alphabetical order and their structures. The ID of a field is its position.
+     */
+    private static class Index {
+        private final @NotNull String @NotNull [] names;
+        private final @NotNull DatatypeStructure @NotNull [] structures;
+
+        private Index(@NotNull Map<String, DatatypeStructure> fields) {
+            names = fields.keySet().toArray(new String[0]);
+            Arrays.sort(names);
+            structures = new DatatypeStructure[names.length];
+            for (int i = 0; i < names.length; i++) {
+                structures[i] = fields.get(names[i]);
+            }
+        }
+    }
+
+    private @NotNull Index index() {
+        var res = index;
+        if (res == null) {
+            // concurrent callers might build equal indices, either one will do
+            res = new Index(fields);
+            index = res;
+        }
+        return res;
     }
 
     @Override
     public boolean hasField(@NotNull String fieldName, @NotNull String... fieldNames) {
-        if (!fields.containsKey(fieldName)) {
-            return false;
+        DatatypeStructure current = fields.get(fieldName);
+        for (int i = 0; current != null && i < fieldNames.length; i++) {
+            int id = current.fieldId(fieldNames[i]);
+            current = id < 0 ? null : current.getField(id);
         }
-        if (fieldNames.length == 0) {
-            return true;
-        }
-        String subfieldName = fieldNames[0];
-        String[] subfieldNames = Arrays.copyOfRange(fieldNames, 1, fieldNames.length);
-        return fields.get(fieldName).hasField(subfieldName, subfieldNames);
+        return current != null;
     }
 
     @Override
     public @NotNull DatatypeStructure getField(@NotNull String fieldName, @NotNull String... fieldNames) {
-        final DatatypeStructure structure = fields.get(fieldName);
-        if (fieldNames.length == 0) {
-            return structure;
+        DatatypeStructure res = fields.get(fieldName);
+        if (res == null) {
+            throw new NoSuchElementException(fieldName);
+        }
+        for (String subfieldName : fieldNames) {
+            int id = res.fieldId(subfieldName);
+            if (id < 0) {
+                throw new NoSuchElementException(subfieldName);
+            }
+            res = res.getField(id);
+        }
+        return res;
+    }
+
+    @Override
+    public @NotNull Set<String> fieldNames() {
+        return Collections.unmodifiableSet(fields.keySet());
+    }
+
+    @Override
+    public int fieldId(@NotNull String fieldName) {
+        int res = Arrays.binarySearch(index().names, fieldName);
+        return res >= 0 ? res : -1;
+    }
+
+    @Override
+    public @NotNull DatatypeStructure getField(int fieldId) {
+        var structures = index().structures;
+        if (fieldId < 0 || fieldId >= structures.length) {
+            throw new NoSuchElementException(String.valueOf(fieldId));
         }
-        String subfieldName = fieldNames[0];
-        String[] subfieldNames = Arrays.copyOfRange(fieldNames, 1, fieldNames.length);
-        return structure.getField(subfieldName, subfieldNames);
+        return structures[fieldId];
     }
 }
@@ -7,12 +7,21 @@ import java.util.Map;
 public class ReferenceStructure extends ObjectStructure {
 
     public ReferenceStructure(@NotNull Map<String, DatatypeStructure> fields) {
-        super(fields);
-        this.fields.put("id", PRIMITIVE);
+        super(withId(fields));
+    }
+
+    private static @NotNull Map<String, DatatypeStructure> withId(@NotNull Map<String, DatatypeStructure> fields) {
+        fields.put("id", PRIMITIVE);
+        return fields;
     }
 
     @Override
     public boolean wildcardSerializable(@NotNull String fieldName, @NotNull String... fieldNames) {
         return fieldNames.length == 0 && "id".equals(fieldName);
     }
+
+    @Override
+    public boolean wildcardSerializable(int fieldId) {
+        return fieldId >= 0 && fieldId == fieldId("id");
+    }
 }
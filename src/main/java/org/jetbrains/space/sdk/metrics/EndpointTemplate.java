@@ -0,0 +1,99 @@
+package org.jetbrains.space.sdk.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Turns API endpoints into templates, so that the requests for different objects are measured together.
+ *
+ * For example, "/api/http/team-directory/profiles/id:2o8CHv1pZxkh/working-days" becomes
+ * "/api/http/team-directory/profiles/id:{id}/working-days", and "/api/http/hrm/business-entities/relations/john-doe"
+ * becomes "/api/http/hrm/business-entities/relations/{id}".
+ *
+ * The identifiers are recognised by the prefixes the API types them with, e.g. "id:", "username:" or "email:".
+ * Along the endpoints of the SDK, the resource names and the places of the raw identifiers are known, so a raw
+ * identifier is recognised even if it looks like a resource name. Elsewhere, it's a guess: a raw path segment is
+ * considered to be an identifier unless it consists of lowercase words separated by hyphens, so a lowercase raw
+ * identifier, e.g. a username, stays in the template.
+ */
+public class EndpointTemplate {
+
+    /**
+     * The path segments that name the API resources outside the known endpoints, all others are considered to be
+     * identifiers.
+     */
+    private static final Pattern RESOURCE_NAME = Pattern.compile("[a-z]+(-[a-z]+)*");
+
+    private static final String RAW_ID = "{id}";
+
+    /**
+     * The templates of the endpoints of the SDK.
+     */
+    private static final List<String> KNOWN_ENDPOINTS = List.of(
+            "/api/http/absences",
+            "/api/http/chats/messages/send-message",
+            "/api/http/hrm/business-entities",
+            "/api/http/hrm/business-entities/relations/{id}",
+            "/api/http/hrm/vacations/member-available-vacation-days",
+            "/api/http/public-holidays/holidays/profile-holidays",
+            "/api/http/team-directory/member-locations",
+            "/api/http/team-directory/profiles/email:{email}",
+            "/api/http/team-directory/profiles/id:{id}/working-days",
+            "/api/http/team-directory/profiles/working-days"
+    );
+
+    /**
+     * The known endpoints as a tree of their path segments, the root being the empty segment before the first "/".
+     */
+    private static final Node KNOWN = new Node();
+
+    static {
+        for (String endpoint : KNOWN_ENDPOINTS) {
+            Node node = KNOWN;
+            for (String segment : endpoint.substring(1).split("/")) {
+                node = node.children.computeIfAbsent(segment, ignored -> new Node());
+            }
+        }
+    }
+
+    private static class Node {
+        private final @NotNull Map<String, Node> children = new HashMap<>();
+    }
+
+    private EndpointTemplate() {
+    }
+
+    /**
+     * @param endpoint the API endpoint, without the query parameters.
+     * @return the endpoint with the identifiers replaced by placeholders.
+     */
+    public static @NotNull String of(@NotNull String endpoint) {
+        String[] segments = endpoint.split("/", -1);
+        // the position in the known endpoints, null if the endpoint isn't one of them
+        @Nullable Node node = endpoint.startsWith("/") ? KNOWN : null;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            int colon = segment.indexOf(':');
+            if (colon > 0) {
+                // a typed identifier, e.g. "id:..." or "email:..."
+                String kind = segment.substring(0, colon);
+                segments[i] = kind + ":{" + kind + "}";
+            } else if (node == null || !node.children.containsKey(segment)) {
+                // a raw identifier where a known endpoint takes one, or anything but a resource name
+                if (node != null && node.children.containsKey(RAW_ID) || !RESOURCE_NAME.matcher(segment).matches()) {
+                    segments[i] = RAW_ID;
+                }
+            }
+            node = node != null ? node.children.get(segments[i]) : null;
+        }
+        return String.join("/", segments);
+    }
+}
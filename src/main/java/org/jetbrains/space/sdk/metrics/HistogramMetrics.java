@@ -0,0 +1,226 @@
+package org.jetbrains.space.sdk.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the counters and the latency histograms of every endpoint in memory. The measurements are recorded without
+ * locks, only the first measurement of an endpoint locks to create its metrics.
+ *
+ * For example, {@code metrics.getEndpoints().get("GET /api/http/absences").getLatency().getP99()} returns
+ * the 99th percentile of the absence request latency.
+ */
+public class HistogramMetrics implements SpaceMetrics {
+
+    private final @NotNull ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final @NotNull LatencyHistogram tokenRefreshTime = new LatencyHistogram();
+    private final @NotNull LongAdder tokenRefreshFailures = new LongAdder();
+
+    private @NotNull EndpointMetrics endpoint(@NotNull String endpoint, @NotNull String method) {
+        String key = method + " " + endpoint;
+        var res = endpoints.get(key);
+        return res != null ? res : endpoints.computeIfAbsent(key, ignored -> new EndpointMetrics());
+    }
+
+    /**
+     * Batch pages are reported without the method, and the batch requests are always GET requests.
+     */
+    private @NotNull EndpointMetrics endpoint(@NotNull String endpoint) {
+        return endpoint(endpoint, "GET");
+    }
+
+    @Override
+    public void onRequestStart(@NotNull String endpoint, @NotNull String method) {
+        endpoint(endpoint, method).inFlight.increment();
+    }
+
+    @Override
+    public void onRequestEnd(@NotNull String endpoint, @NotNull String method, long durationNanos,
+                             @Nullable Throwable error) {
+        var metrics = endpoint(endpoint, method);
+        metrics.inFlight.decrement();
+        metrics.requests.increment();
+        if (error != null) {
+            metrics.failures.increment();
+        }
+        metrics.latency.record(durationNanos);
+    }
+
+    @Override
+    public void onAttempt(@NotNull String endpoint, @NotNull String method, int attempt) {
+        endpoint(endpoint, method).attempts.increment();
+    }
+
+    @Override
+    public void onRetry(@NotNull String endpoint, @NotNull String method, @NotNull RetryReason reason) {
+        endpoint(endpoint, method).retries.get(reason).increment();
+    }
+
+    @Override
+    public void onTokenRefresh(long durationNanos, @Nullable Throwable error) {
+        tokenRefreshTime.record(durationNanos);
+        if (error != null) {
+            tokenRefreshFailures.increment();
+        }
+    }
+
+    @Override
+    public void onPage(@NotNull String endpoint, int elements) {
+        var metrics = endpoint(endpoint);
+        metrics.pages.increment();
+        metrics.elements.add(elements);
+    }
+
+    @Override
+    public void onResponse(@NotNull String endpoint, @NotNull String method, long receivedBytes, long decodedBytes,
+                           long decodeNanos) {
+        var metrics = endpoint(endpoint, method);
+        metrics.receivedBytes.add(receivedBytes);
+        metrics.decodedBytes.add(decodedBytes);
+        metrics.decodeTime.record(decodeNanos);
+    }
+
+    /**
+     * @return the metrics by endpoint template prefixed with the method, e.g. "GET /api/http/absences".
+     */
+    public @NotNull Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    /**
+     * @return the time it takes to obtain an OAuth token.
+     */
+    public @NotNull LatencyHistogram.Snapshot getTokenRefreshTime() {
+        return tokenRefreshTime.snapshot();
+    }
+
+    public long getTokenRefreshFailures() {
+        return tokenRefreshFailures.sum();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        var res = new StringBuilder();
+        new TreeMap<>(endpoints).forEach((endpoint, metrics) ->
+                res.append(endpoint).append(": ").append(metrics).append('\n'));
+        res.append("token refresh: ").append(tokenRefreshTime.snapshot());
+        return res.toString();
+    }
+
+    /**
+     * The metrics of a single endpoint template and method.
+     */
+    public static class EndpointMetrics {
+        private final @NotNull LongAdder inFlight = new LongAdder();
+        private final @NotNull LongAdder requests = new LongAdder();
+        private final @NotNull LongAdder failures = new LongAdder();
+        private final @NotNull LongAdder attempts = new LongAdder();
+        private final @NotNull Map<RetryReason, LongAdder> retries = new EnumMap<>(RetryReason.class);
+        private final @NotNull LongAdder pages = new LongAdder();
+        private final @NotNull LongAdder elements = new LongAdder();
+        private final @NotNull LongAdder receivedBytes = new LongAdder();
+        private final @NotNull LongAdder decodedBytes = new LongAdder();
+        private final @NotNull LatencyHistogram latency = new LatencyHistogram();
+        private final @NotNull LatencyHistogram decodeTime = new LatencyHistogram();
+
+        private EndpointMetrics() {
+            for (RetryReason reason : RetryReason.values()) {
+                retries.put(reason, new LongAdder());
+            }
+        }
+
+        /**
+         * @return the number of requests started but not over yet.
+         */
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+
+        /**
+         * @return the number of completed requests, including the failed ones.
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return the number of requests sent over the network, including the retries.
+         * Cached and coalesced requests are not sent.
+         */
+        public long getAttempts() {
+            return attempts.sum();
+        }
+
+        public long getRetries(@NotNull RetryReason reason) {
+            return retries.get(reason).sum();
+        }
+
+        /**
+         * @return the number of pages received by the batch requests.
+         */
+        public long getPages() {
+            return pages.sum();
+        }
+
+        /**
+         * @return the number of elements in the pages received by the batch requests.
+         */
+        public long getElements() {
+            return elements.sum();
+        }
+
+        public long getReceivedBytes() {
+            return receivedBytes.sum();
+        }
+
+        public long getDecodedBytes() {
+            return decodedBytes.sum();
+        }
+
+        /**
+         * @return the duration of the requests, from the start to the decoded response, including the retries.
+         */
+        public @NotNull LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+
+        /**
+         * @return the decoding time of the responses.
+         */
+        public @NotNull LatencyHistogram.Snapshot getDecodeTime() {
+            return decodeTime.snapshot();
+        }
+
+        @Override
+        public @NotNull String toString() {
+            var res = new StringBuilder().append("requests=").append(getRequests())
+                    .append(", failures=").append(getFailures())
+                    .append(", attempts=").append(getAttempts());
+            for (RetryReason reason : RetryReason.values()) {
+                long count = getRetries(reason);
+                if (count > 0) {
+                    res.append(", retries ").append(reason).append('=').append(count);
+                }
+            }
+            if (getPages() > 0) {
+                res.append(", pages=").append(getPages()).append(", elements=").append(getElements());
+            }
+            return res.append(", received=").append(getReceivedBytes()).append("B")
+                    .append(", decoded=").append(getDecodedBytes()).append("B")
+                    .append(", latency: ").append(getLatency())
+                    .append(", decoding: ").append(getDecodeTime())
+                    .toString();
+        }
+    }
+}
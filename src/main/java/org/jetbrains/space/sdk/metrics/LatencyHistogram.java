@@ -0,0 +1,157 @@
+package org.jetbrains.space.sdk.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations with a relative error of at most 12.5%.
+ *
+ * Values are counted in log-linear buckets: every power of two is split into 8 equal buckets.
+ * Recording is a few atomic increments, so the histogram can be updated from many threads without contention
+ * on a lock. A snapshot taken while values are being recorded might miss some of them.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final @NotNull AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final @NotNull AtomicLong count = new AtomicLong();
+    private final @NotNull AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos the duration to record, negative durations are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the largest value that falls into the bucket.
+     */
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowest = (long) (SUB_BUCKETS | index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public @NotNull Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long maxValue = max.get();
+        return new Snapshot(total, quantile(snapshot, total, 0.5, maxValue), quantile(snapshot, total, 0.99, maxValue),
+                quantile(snapshot, total, 0.999, maxValue), maxValue);
+    }
+
+    private static long quantile(long @NotNull [] snapshot, long total, double quantile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Read the value at the quantile directly, which is cheaper than taking a snapshot.
+     *
+     * @param quantile e.g. 0.95 for the 95th percentile.
+     */
+    public @NotNull Duration getQuantile(double quantile) {
+        long total = count.get();
+        long maxValue = max.get();
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(highestValue(i), maxValue));
+            }
+        }
+        return Duration.ofNanos(maxValue);
+    }
+
+    /**
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * The percentiles of the recorded durations at the time of the snapshot.
+     */
+    public static class Snapshot {
+        private final long count;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        private Snapshot(long count, long p50, long p99, long p999, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public @NotNull Duration getP50() {
+            return Duration.ofNanos(p50);
+        }
+
+        public @NotNull Duration getP99() {
+            return Duration.ofNanos(p99);
+        }
+
+        public @NotNull Duration getP999() {
+            return Duration.ofNanos(p999);
+        }
+
+        public @NotNull Duration getMax() {
+            return Duration.ofNanos(max);
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return "count=" + count + ", p50=" + p50 / 1000 + "us, p99=" + p99 / 1000 + "us, p999=" + p999 / 1000
+                    + "us, max=" + max / 1000 + "us";
+        }
+    }
+}
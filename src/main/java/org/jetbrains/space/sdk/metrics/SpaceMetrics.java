@@ -0,0 +1,101 @@
+package org.jetbrains.space.sdk.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Receives the measurements of a Space service, see {@code SpaceService.Builder#setMetrics}.
+ *
+ * Endpoints are reported as templates, with the IDs stripped, see {@link EndpointTemplate}.
+ * All callbacks do nothing by default. They are invoked concurrently from the threads that execute the requests,
+ * so implementations must be thread-safe, fast and must not throw.
+ * {@link HistogramMetrics} is a ready-to-use implementation.
+ */
+public interface SpaceMetrics {
+
+    /**
+     * Why a request is retried.
+     */
+    enum RetryReason {
+        /**
+         * A 5xx response.
+         */
+        SERVER_ERROR,
+        /**
+         * A "429 Too Many Requests" response.
+         */
+        THROTTLED,
+        /**
+         * A 401 response, the request is retried with a refreshed token.
+         */
+        UNAUTHORIZED,
+        /**
+         * The connection has been closed by the server, e.g. with an HTTP/2 GOAWAY frame.
+         */
+        CONNECTION_CLOSED
+    }
+
+    /**
+     * Doesn't measure anything.
+     */
+    SpaceMetrics NONE = new SpaceMetrics() {
+    };
+
+    /**
+     * A request is started, either an API request or a single page of a batch request.
+     */
+    default void onRequestStart(@NotNull String endpoint, @NotNull String method) {
+    }
+
+    /**
+     * A request is over, after all of its attempts.
+     *
+     * @param durationNanos the time since the start of the request.
+     * @param error the reason of the failure, null if the request succeeded.
+     */
+    default void onRequestEnd(@NotNull String endpoint, @NotNull String method, long durationNanos,
+                              @Nullable Throwable error) {
+    }
+
+    /**
+     * A request is sent over the network.
+     *
+     * @param attempt the attempt number, starting from 1.
+     */
+    default void onAttempt(@NotNull String endpoint, @NotNull String method, int attempt) {
+    }
+
+    /**
+     * A request is going to be retried.
+     */
+    default void onRetry(@NotNull String endpoint, @NotNull String method, @NotNull RetryReason reason) {
+    }
+
+    /**
+     * The OAuth token has been requested.
+     *
+     * @param error the reason of the failure, null if the token has been received.
+     */
+    default void onTokenRefresh(long durationNanos, @Nullable Throwable error) {
+    }
+
+    /**
+     * A batch request has received a page.
+     *
+     * @param elements the number of elements in the page.
+     */
+    default void onPage(@NotNull String endpoint, int elements) {
+    }
+
+    /**
+     * A response body has been decoded.
+     *
+     * @param receivedBytes the size of the body as received, i.e. possibly compressed.
+     * @param decodedBytes the size of the body after decompression.
+     * @param decodeNanos the decoding time. Responses are decoded while they are being received,
+     *                    so this includes the time spent waiting for the rest of the body.
+     */
+    default void onResponse(@NotNull String endpoint, @NotNull String method, long receivedBytes, long decodedBytes,
+                            long decodeNanos) {
+    }
+}
@@ -0,0 +1,26 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors for the internal tasks, such as the HTTP client callbacks, the decoding of response bodies
+ * while they are being received, and the scheduled retries.
+ *
+ * This is the Java 21 version of the class from the multi-release JAR.
+ */
+class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @return an executor that starts a virtual thread for each task. A decoder waiting for the rest of the body
+     * parks its virtual thread instead of occupying a platform thread.
+     */
+    static @NotNull Executor newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("space-sdk-", 1).factory());
+    }
+}
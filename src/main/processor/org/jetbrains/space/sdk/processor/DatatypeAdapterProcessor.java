@@ -0,0 +1,572 @@
+package org.jetbrains.space.sdk.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates streaming Gson type adapters for the data types of the SDK at build time, so that they aren't
+ * deserialized by reflection at runtime.
+ *
+ * The data types are the SpaceObject classes and the classes of the SDK their fields refer to, except the custom
+ * field values, which have an adapter of their own. Their fields are the instance fields, as for the reflective
+ * adapter of Gson. A data type is constructed with the constructor having a parameter for every field, by name,
+ * or, if all its fields are non-final, with the constructor without parameters and then filled field by field.
+ * The adapters are generated as the nested classes of the DatatypeAdapters type adapter factory. The datatype
+ * package is enumerated as a whole, including the classes compiled earlier, so that a compilation of only some of
+ * the classes, e.g. an incremental one, still generates all the adapters.
+ */
+@SupportedAnnotationTypes("*")
+public class DatatypeAdapterProcessor extends AbstractProcessor {
+
+    private static final String PACKAGE = "org.jetbrains.space.sdk.datatype";
+    private static final String SPACE_OBJECT = PACKAGE + ".SpaceObject";
+    private static final String CF_VALUE = PACKAGE + ".CFValue";
+    private static final String ADAPTERS = PACKAGE + ".DatatypeAdapters";
+
+    /**
+     * The types read and written inline, mapped to the names of their read methods.
+     */
+    private static final Map<String, String> INLINE = Map.of(
+            "java.lang.String", "readString",
+            "boolean", "readBoolean",
+            "java.lang.Boolean", "readBooleanObject",
+            "int", "readInt",
+            "java.lang.Integer", "readInteger",
+            "long", "readLong",
+            "java.lang.Long", "readLongObject",
+            "double", "readDouble",
+            "java.lang.Double", "readDoubleObject");
+
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated) {
+            return false;
+        }
+        generated = true;
+        TypeElement spaceObject = processingEnv.getElementUtils().getTypeElement(SPACE_OBJECT);
+        TypeElement cfValue = processingEnv.getElementUtils().getTypeElement(CF_VALUE);
+        if (spaceObject == null || cfValue == null) {
+            return false;
+        }
+        var candidates = new HashSet<TypeElement>();
+        for (Element element : processingEnv.getElementUtils().getPackageElement(PACKAGE).getEnclosedElements()) {
+            collect(element, candidates);
+        }
+
+        var pending = new ArrayDeque<TypeElement>();
+        for (TypeElement type : candidates) {
+            if (isAssignable(type.asType(), spaceObject.asType())) {
+                pending.add(type);
+            }
+        }
+        // by qualified name, for a stable output
+        var adapters = new TreeMap<String, Adapter>();
+        var skipped = new HashSet<String>();
+        while (!pending.isEmpty()) {
+            TypeElement type = pending.poll();
+            String name = type.getQualifiedName().toString();
+            if (adapters.containsKey(name) || skipped.contains(name)) {
+                continue;
+            }
+            if (isAssignable(type.asType(), cfValue.asType()) || type.getModifiers().contains(Modifier.ABSTRACT)
+                    || !type.getTypeParameters().isEmpty()) {
+                skipped.add(name);
+                continue;
+            }
+            var adapter = describe(type);
+            if (adapter != null) {
+                adapters.put(name, adapter);
+                // the data types the fields refer to
+                for (VariableElement field : adapter.fields) {
+                    referredTypes(field.asType(), candidates, pending);
+                }
+            }
+        }
+        try {
+            write(adapters);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return false;
+    }
+
+    /**
+     * Collect the classes that can be data types: the public classes, including the static nested ones.
+     */
+    private void collect(Element element, Set<TypeElement> candidates) {
+        if (element.getKind() != ElementKind.CLASS || !element.getModifiers().contains(Modifier.PUBLIC)) {
+            return;
+        }
+        var type = (TypeElement) element;
+        if (type.getNestingKind() == NestingKind.TOP_LEVEL || type.getModifiers().contains(Modifier.STATIC)) {
+            candidates.add(type);
+            for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+                collect(nested, candidates);
+            }
+        }
+    }
+
+    private boolean isAssignable(TypeMirror type, TypeMirror to) {
+        var types = processingEnv.getTypeUtils();
+        return types.isAssignable(types.erasure(type), types.erasure(to));
+    }
+
+    private void referredTypes(TypeMirror type, Set<TypeElement> candidates, ArrayDeque<TypeElement> pending) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            referredTypes(((ArrayType) type).getComponentType(), candidates, pending);
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            var declared = (DeclaredType) type;
+            var element = (TypeElement) declared.asElement();
+            if (candidates.contains(element)) {
+                pending.add(element);
+            }
+            for (TypeMirror argument : declared.getTypeArguments()) {
+                referredTypes(argument, candidates, pending);
+            }
+        }
+    }
+
+    /**
+     * The adapter of a data type.
+     */
+    private static class Adapter {
+        private final TypeElement type;
+        /**
+         * The instance fields, including the inherited ones, in the order of the reflective adapter of Gson.
+         */
+        private final List<VariableElement> fields;
+        /**
+         * The constructor with a parameter for every field, null to construct with the one without parameters.
+         */
+        private final ExecutableElement constructor;
+
+        private Adapter(TypeElement type, List<VariableElement> fields, ExecutableElement constructor) {
+            this.type = type;
+            this.fields = fields;
+            this.constructor = constructor;
+        }
+    }
+
+    /**
+     * @return the adapter of the type, or null if it can't be generated, which is reported as an error.
+     */
+    private Adapter describe(TypeElement type) {
+        var fields = new ArrayList<VariableElement>();
+        var names = new HashSet<String>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                var modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (!names.add(field.getSimpleName().toString())) {
+                    error("the field " + field.getSimpleName() + " is declared more than once in the hierarchy", field);
+                    return null;
+                }
+                if (!isAccessible(field)) {
+                    error("the field " + field.getSimpleName() + " isn't accessible to the generated adapter", field);
+                    return null;
+                }
+                if (!isSupported(field.asType())) {
+                    error("can't generate an adapter for the field of " + field.asType(), field);
+                    return null;
+                }
+                fields.add(field);
+            }
+        }
+
+        boolean mutable = fields.stream().noneMatch(field -> field.getModifiers().contains(Modifier.FINAL));
+        boolean nullary = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!isAccessible(constructor)) {
+                continue;
+            }
+            if (matches(constructor, fields)) {
+                return new Adapter(type, fields, constructor);
+            }
+            nullary |= constructor.getParameters().isEmpty();
+        }
+        if (mutable && nullary) {
+            return new Adapter(type, fields, null);
+        }
+        error("can't generate an adapter for " + type.getQualifiedName() + ", it needs a constructor with "
+                + "a parameter for every field, named as the field", type);
+        return null;
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    /**
+     * @return whether the generated adapter, in the package of the data types, can use the element.
+     */
+    private boolean isAccessible(Element element) {
+        var modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE)
+                && processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().contentEquals(PACKAGE);
+    }
+
+    /**
+     * @return whether the type can be named in the generated code: no type variables or wildcards.
+     */
+    private boolean isSupported(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return isSupported(((ArrayType) type).getComponentType());
+            case DECLARED:
+                return ((DeclaredType) type).getTypeArguments().stream().allMatch(this::isSupported);
+            case BOOLEAN:
+            case INT:
+            case LONG:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean matches(ExecutableElement constructor, List<VariableElement> fields) {
+        if (constructor.getParameters().size() != fields.size()) {
+            return false;
+        }
+        var types = processingEnv.getTypeUtils();
+        for (VariableElement parameter : constructor.getParameters()) {
+            if (fields.stream().noneMatch(field -> field.getSimpleName().equals(parameter.getSimpleName())
+                    && types.isSameType(field.asType(), parameter.asType()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * @return the source code of the type, with the qualified names and without annotations.
+     */
+    private static String render(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return render(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                var declared = (DeclaredType) type;
+                var res = new StringBuilder(((TypeElement) declared.asElement()).getQualifiedName());
+                if (!declared.getTypeArguments().isEmpty()) {
+                    res.append('<');
+                    for (int i = 0; i < declared.getTypeArguments().size(); i++) {
+                        res.append(i > 0 ? ", " : "").append(render(declared.getTypeArguments().get(i)));
+                    }
+                    res.append('>');
+                }
+                return res.toString();
+            default:
+                return type.getKind().name().toLowerCase();
+        }
+    }
+
+    /**
+     * @return the source code of the Type object of the type.
+     */
+    private static String typeObject(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            var declared = (DeclaredType) type;
+            var res = new StringBuilder("TypeToken.getParameterized(")
+                    .append(((TypeElement) declared.asElement()).getQualifiedName()).append(".class");
+            for (TypeMirror argument : declared.getTypeArguments()) {
+                res.append(", ").append(typeObject(argument));
+            }
+            return res.append(").getType()").toString();
+        }
+        if (type.getKind() == TypeKind.ARRAY && ((ArrayType) type).getComponentType().getKind() == TypeKind.DECLARED
+                && !((DeclaredType) ((ArrayType) type).getComponentType()).getTypeArguments().isEmpty()) {
+            return "TypeToken.getArray(" + typeObject(((ArrayType) type).getComponentType()) + ").getType()";
+        }
+        return render(type) + ".class";
+    }
+
+    private void write(TreeMap<String, Adapter> adapters) throws IOException {
+        // a nested class for every adapter, named after the simple name of the type
+        var classes = new LinkedHashMap<Adapter, String>();
+        var used = new HashSet<String>();
+        for (Adapter adapter : adapters.values()) {
+            String simpleName = adapter.type.getSimpleName().toString();
+            String name = simpleName + "Adapter";
+            for (int i = 2; !used.add(name); i++) {
+                name = simpleName + i + "Adapter";
+            }
+            classes.put(adapter, name);
+        }
+
+        var originating = adapters.values().stream().map(adapter -> adapter.type).toArray(Element[]::new);
+        var file = processingEnv.getFiler().createSourceFile(ADAPTERS, originating);
+        try (var out = new PrintWriter(file.openWriter())) {
+            out.println("package " + PACKAGE + ";");
+            out.println();
+            out.println("import com.google.gson.Gson;");
+            out.println("import com.google.gson.JsonSyntaxException;");
+            out.println("import com.google.gson.TypeAdapter;");
+            out.println("import com.google.gson.TypeAdapterFactory;");
+            out.println("import com.google.gson.reflect.TypeToken;");
+            out.println("import com.google.gson.stream.JsonReader;");
+            out.println("import com.google.gson.stream.JsonToken;");
+            out.println("import com.google.gson.stream.JsonWriter;");
+            out.println();
+            out.println("import java.io.IOException;");
+            out.println();
+            out.println("/**");
+            out.println(" * The Gson type adapters of the data types of the SDK, generated at build time.");
+            out.println(" *");
+            out.println(" * The adapters read the fields by name in a single pass, skip the unknown ones and call the constructors");
+            out.println(" * of the types directly, without reflection. The primitives and strings are read as by the adapters of Gson.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class DatatypeAdapters implements TypeAdapterFactory {");
+            out.println();
+            out.println("  public static final TypeAdapterFactory ADAPTER_FACTORY = new DatatypeAdapters();");
+            out.println();
+            out.println("  private DatatypeAdapters() {}");
+            out.println();
+            out.println("  @Override");
+            out.println("  @SuppressWarnings(\"unchecked\")");
+            out.println("  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {");
+            out.println("    Class<? super T> raw = type.getRawType();");
+            classes.forEach((adapter, name) -> {
+                out.println("    if (raw == " + render(adapter.type.asType()) + ".class) {");
+                out.println("      return (TypeAdapter<T>) new " + name + "(gson);");
+                out.println("    }");
+            });
+            out.println("    return null;");
+            out.println("  }");
+            classes.forEach((adapter, name) -> writeAdapter(out, adapter, name));
+            writeHelpers(out);
+            out.println("}");
+        }
+    }
+
+    private void writeAdapter(PrintWriter out, Adapter adapter, String name) {
+        String type = render(adapter.type.asType());
+        // a delegate adapter for every other field type, and a local variable for every field
+        var delegates = new LinkedHashMap<String, String>();
+        var delegateTypes = new LinkedHashMap<String, TypeMirror>();
+        var locals = new LinkedHashMap<VariableElement, String>();
+        var usedLocals = new HashSet<String>(List.of("in", "res"));
+        for (VariableElement field : adapter.fields) {
+            String fieldType = render(field.asType());
+            if (!INLINE.containsKey(fieldType) && !delegates.containsKey(fieldType)) {
+                delegates.put(fieldType, "adapter" + delegates.size());
+                delegateTypes.put(fieldType, field.asType());
+            }
+            String local = field.getSimpleName().toString();
+            while (!usedLocals.add(local)) {
+                local += "_";
+            }
+            locals.put(field, local);
+        }
+
+        out.println();
+        out.println("  private static final class " + name + " extends TypeAdapter<" + type + "> {");
+        if (!delegates.isEmpty()) {
+            out.println();
+        }
+        delegates.forEach((fieldType, delegate) ->
+                out.println("    private final TypeAdapter<" + fieldType + "> " + delegate + ";"));
+        out.println();
+        if (delegateTypes.values().stream().anyMatch(t -> t.getKind() != TypeKind.DECLARED
+                || !((DeclaredType) t).getTypeArguments().isEmpty())) {
+            out.println("    @SuppressWarnings(\"unchecked\")");
+        }
+        out.println("    private " + name + "(Gson gson) {");
+        delegateTypes.forEach((fieldType, typeMirror) -> {
+            String typeObject = typeObject(typeMirror);
+            out.println("      " + delegates.get(fieldType) + " = " + (typeObject.startsWith("TypeToken")
+                    ? "(TypeAdapter<" + fieldType + ">) gson.getAdapter("
+                    + typeObject.substring(0, typeObject.length() - ".getType()".length()) + ");"
+                    : "gson.getAdapter(" + typeObject + ");"));
+        });
+        out.println("    }");
+
+        // reading
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + type + " read(JsonReader in) throws IOException {");
+        out.println("      if (in.peek() == JsonToken.NULL) {");
+        out.println("        in.nextNull();");
+        out.println("        return null;");
+        out.println("      }");
+        if (adapter.constructor == null) {
+            out.println("      " + type + " res = new " + type + "();");
+        } else {
+            for (VariableElement field : adapter.fields) {
+                out.println("      " + render(field.asType()) + " " + locals.get(field) + " = "
+                        + defaultValue(field.asType()) + ";");
+            }
+        }
+        out.println("      in.beginObject();");
+        out.println("      while (in.hasNext()) {");
+        out.println("        switch (in.nextName()) {");
+        for (VariableElement field : adapter.fields) {
+            String target = adapter.constructor == null ? "res." + field.getSimpleName() : locals.get(field);
+            String fieldType = render(field.asType());
+            String read = INLINE.containsKey(fieldType)
+                    ? INLINE.get(fieldType) + "(in" + (field.asType().getKind().isPrimitive() ? ", " + target : "") + ")"
+                    : delegates.get(fieldType) + ".read(in)";
+            out.println("          case \"" + field.getSimpleName() + "\":");
+            out.println("            " + target + " = " + read + ";");
+            out.println("            break;");
+        }
+        out.println("          default:");
+        out.println("            in.skipValue();");
+        out.println("        }");
+        out.println("      }");
+        out.println("      in.endObject();");
+        if (adapter.constructor == null) {
+            out.println("      return res;");
+        } else {
+            var arguments = new StringBuilder();
+            for (VariableElement parameter : adapter.constructor.getParameters()) {
+                for (VariableElement field : adapter.fields) {
+                    if (field.getSimpleName().equals(parameter.getSimpleName())) {
+                        arguments.append(arguments.length() > 0 ? ", " : "").append(locals.get(field));
+                    }
+                }
+            }
+            out.println("      return new " + type + "(" + arguments + ");");
+        }
+        out.println("    }");
+
+        // writing
+        out.println();
+        out.println("    @Override");
+        out.println("    public void write(JsonWriter out, " + type + " value) throws IOException {");
+        out.println("      if (value == null) {");
+        out.println("        out.nullValue();");
+        out.println("        return;");
+        out.println("      }");
+        out.println("      out.beginObject();");
+        for (VariableElement field : adapter.fields) {
+            String fieldType = render(field.asType());
+            out.println("      out.name(\"" + field.getSimpleName() + "\");");
+            if (INLINE.containsKey(fieldType)) {
+                out.println("      out.value(value." + field.getSimpleName() + ");");
+            } else {
+                out.println("      " + delegates.get(fieldType) + ".write(out, value." + field.getSimpleName() + ");");
+            }
+        }
+        out.println("      out.endObject();");
+        out.println("    }");
+        out.println("  }");
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case INT:
+                return "0";
+            case LONG:
+                return "0L";
+            case DOUBLE:
+                return "0.0";
+            default:
+                return "null";
+        }
+    }
+
+    /**
+     * The inline reading of the primitives and strings. A null keeps the default value of a primitive field.
+     */
+    private static void writeHelpers(PrintWriter out) {
+        out.println();
+        out.println("  private static String readString(JsonReader in) throws IOException {");
+        out.println("    JsonToken token = in.peek();");
+        out.println("    if (token == JsonToken.NULL) {");
+        out.println("      in.nextNull();");
+        out.println("      return null;");
+        out.println("    }");
+        out.println("    return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();");
+        out.println("  }");
+        out.println();
+        out.println("  private static Boolean readBooleanObject(JsonReader in) throws IOException {");
+        out.println("    JsonToken token = in.peek();");
+        out.println("    if (token == JsonToken.NULL) {");
+        out.println("      in.nextNull();");
+        out.println("      return null;");
+        out.println("    }");
+        out.println("    return token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();");
+        out.println("  }");
+        out.println();
+        out.println("  private static boolean readBoolean(JsonReader in, boolean absent) throws IOException {");
+        out.println("    Boolean res = readBooleanObject(in);");
+        out.println("    return res != null ? res : absent;");
+        out.println("  }");
+        for (String[] number : new String[][] {{"Integer", "int", "Int"}, {"Long", "long", "Long"},
+                {"Double", "double", "Double"}}) {
+            String boxed = number[0];
+            String primitive = number[1];
+            String suffix = number[2];
+            String objectReader = boxed.equals("Integer") ? "readInteger" : "read" + suffix + "Object";
+            out.println();
+            out.println("  private static " + boxed + " " + objectReader + "(JsonReader in) throws IOException {");
+            out.println("    if (in.peek() == JsonToken.NULL) {");
+            out.println("      in.nextNull();");
+            out.println("      return null;");
+            out.println("    }");
+            if (primitive.equals("double")) {
+                out.println("    return in.nextDouble();");
+            } else {
+                out.println("    try {");
+                out.println("      return in.next" + suffix + "();");
+                out.println("    } catch (NumberFormatException e) {");
+                out.println("      throw new JsonSyntaxException(e);");
+                out.println("    }");
+            }
+            out.println("  }");
+            out.println();
+            out.println("  private static " + primitive + " read" + suffix + "(JsonReader in, " + primitive
+                    + " absent) throws IOException {");
+            out.println("    " + boxed + " res = " + objectReader + "(in);");
+            out.println("    return res != null ? res : absent;");
+            out.println("  }");
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.jetbrains.space.sdk.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates the structures of all SpaceObject types at build time, so that they aren't discovered by reflection
+ * at runtime.
+ *
+ * The structures are generated as the constants of the package-private DatatypeStructures class, exactly as
+ * DatatypeStructureDiscovery would discover them: the public instance fields of a type, including the inherited ones,
+ * are its fields, and a type with an "id" field is a reference. The types are found among the classes of the datatype
+ * package and the types of their fields. The package is enumerated as a whole, including the classes compiled earlier,
+ * so that a compilation of only some of the classes, e.g. an incremental one, still generates all the structures.
+ */
+@SupportedAnnotationTypes("*")
+public class DatatypeStructureProcessor extends AbstractProcessor {
+
+    private static final String PACKAGE = "org.jetbrains.space.sdk.datatype";
+    private static final String SPACE_OBJECT = PACKAGE + ".SpaceObject";
+    private static final String STRUCTURES = PACKAGE + ".DatatypeStructures";
+
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated) {
+            return false;
+        }
+        generated = true;
+        TypeElement spaceObject = processingEnv.getElementUtils().getTypeElement(SPACE_OBJECT);
+        if (spaceObject == null) {
+            return false;
+        }
+        var pending = new ArrayDeque<TypeElement>();
+        for (Element element : processingEnv.getElementUtils().getPackageElement(PACKAGE).getEnclosedElements()) {
+            collect(element, spaceObject.asType(), pending);
+        }
+
+        // by qualified name, for a stable output
+        var structures = new TreeMap<String, Structure>();
+        while (!pending.isEmpty()) {
+            TypeElement type = pending.poll();
+            String name = type.getQualifiedName().toString();
+            if (!structures.containsKey(name)) {
+                structures.put(name, describe(type, spaceObject.asType(), pending));
+            }
+        }
+        try {
+            write(structures);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return false;
+    }
+
+    private void collect(Element element, TypeMirror spaceObject, ArrayDeque<TypeElement> pending) {
+        if (element.getKind() != ElementKind.CLASS || !element.getModifiers().contains(Modifier.PUBLIC)) {
+            return;
+        }
+        var type = (TypeElement) element;
+        if (isSpaceObject(type.asType(), spaceObject)) {
+            pending.add(type);
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collect(nested, spaceObject, pending);
+        }
+    }
+
+    private boolean isSpaceObject(TypeMirror type, TypeMirror spaceObject) {
+        var types = processingEnv.getTypeUtils();
+        return types.isAssignable(types.erasure(type), types.erasure(spaceObject));
+    }
+
+    /**
+     * The structure of a SpaceObject type.
+     */
+    private static class Structure {
+        private final TypeElement type;
+        private final boolean reference;
+        /**
+         * The field names mapped to the qualified names of their SpaceObject types, or to null for primitives.
+         */
+        private final Map<String, String> fields = new LinkedHashMap<>();
+
+        private Structure(TypeElement type, boolean reference) {
+            this.type = type;
+            this.reference = reference;
+        }
+    }
+
+    private Structure describe(TypeElement type, TypeMirror spaceObject, ArrayDeque<TypeElement> pending) {
+        var fields = new LinkedHashMap<String, VariableElement>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.PUBLIC) && !field.getModifiers().contains(Modifier.STATIC)) {
+                    // a field hides the fields of the same name in the superclasses
+                    fields.putIfAbsent(field.getSimpleName().toString(), field);
+                }
+            }
+        }
+        var res = new Structure(type, fields.containsKey("id"));
+        fields.forEach((name, field) ->
+                res.fields.put(name, fieldType(field.asType(), field, spaceObject, pending)));
+        return res;
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    /**
+     * @return the qualified name of the SpaceObject type of the field, null for a primitive.
+     */
+    private String fieldType(TypeMirror type, VariableElement field, TypeMirror spaceObject,
+                             ArrayDeque<TypeElement> pending) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            if (type.getKind() != TypeKind.ARRAY && !type.getKind().isPrimitive()) {
+                unsupported(type, field);
+            }
+            return null;
+        }
+        var declared = (DeclaredType) type;
+        var element = (TypeElement) declared.asElement();
+        String name = element.getQualifiedName().toString();
+        if (!declared.getTypeArguments().isEmpty()) {
+            if (name.equals("java.util.List")) {
+                // the structure of a list is the structure of its elements
+                return fieldType(declared.getTypeArguments().get(0), field, spaceObject, pending);
+            } else if (name.equals("java.util.Map")) {
+                // we can't go further
+                return null;
+            }
+            unsupported(type, field);
+            return null;
+        }
+        if (!isSpaceObject(type, spaceObject)) {
+            return null;
+        }
+        pending.add(element);
+        return name;
+    }
+
+    private void unsupported(TypeMirror type, Element field) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "can't investigate the structure of " + type, field);
+    }
+
+    private void write(TreeMap<String, Structure> structures) throws IOException {
+        // a variable for every structure and its fields, named after the simple name of the type
+        var variables = new TreeMap<String, String>();
+        var used = new HashSet<String>();
+        for (Structure structure : structures.values()) {
+            String variable = structure.type.getSimpleName().toString();
+            for (int i = 2; !used.add(variable); i++) {
+                variable = structure.type.getSimpleName().toString() + i;
+            }
+            variables.put(structure.type.getQualifiedName().toString(), variable);
+        }
+
+        var originating = structures.values().stream().map(structure -> structure.type).toArray(Element[]::new);
+        var file = processingEnv.getFiler().createSourceFile(STRUCTURES, originating);
+        try (var out = new PrintWriter(file.openWriter())) {
+            out.println("package " + PACKAGE + ";");
+            out.println();
+            out.println("import org.jetbrains.space.sdk.fields.DatatypeStructure;");
+            out.println("import org.jetbrains.space.sdk.fields.LiteralObjectStructure;");
+            out.println("import org.jetbrains.space.sdk.fields.ReferenceStructure;");
+            out.println();
+            out.println("import java.util.HashMap;");
+            out.println("import java.util.Map;");
+            out.println();
+            out.println("/**");
+            out.println(" * The structures of the SpaceObject types of the SDK, generated at build time.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("final class DatatypeStructures {");
+            out.println();
+            out.println("  static final Map<Class<?>, DatatypeStructure> STRUCTURES;");
+            out.println();
+            out.println("  static {");
+            // the structures refer to each other, possibly in cycles: create them all, then fill their fields
+            for (Structure structure : structures.values()) {
+                String variable = variables.get(structure.type.getQualifiedName().toString());
+                out.println("    var fieldsOf" + variable + " = new HashMap<String, DatatypeStructure>();");
+                out.println("    var structureOf" + variable + " = new "
+                        + (structure.reference ? "ReferenceStructure" : "LiteralObjectStructure")
+                        + "(fieldsOf" + variable + ");");
+            }
+            for (Structure structure : structures.values()) {
+                String variable = variables.get(structure.type.getQualifiedName().toString());
+                structure.fields.forEach((name, type) -> out.println("    fieldsOf" + variable + ".put(\"" + name
+                        + "\", " + (type == null ? "DatatypeStructure.PRIMITIVE" : "structureOf" + variables.get(type))
+                        + ");"));
+            }
+            out.println("    STRUCTURES = Map.ofEntries(");
+            int i = 0;
+            for (Structure structure : structures.values()) {
+                String name = structure.type.getQualifiedName().toString();
+                out.println("        Map.entry(" + name + ".class, structureOf" + variables.get(name) + ")"
+                        + (++i < structures.size() ? "," : ""));
+            }
+            out.println("    );");
+            out.println("  }");
+            out.println();
+            out.println("  private DatatypeStructures() {}");
+            out.println("}");
+        }
+    }
+}
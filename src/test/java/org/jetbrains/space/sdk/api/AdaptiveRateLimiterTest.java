@@ -0,0 +1,100 @@
+package org.jetbrains.space.sdk.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveRateLimiterTest {
+
+  @Test
+  void additiveIncrease() {
+    var limiter = new AdaptiveRateLimiter(100, 1, 1000, 10);
+    for (int i = 0; i < 100; i++) {
+      limiter.onSuccess();
+    }
+    // a second worth of responses adds about one increase
+    assertEquals(109.5, limiter.getRate(), 0.1);
+    for (int i = 0; i < 900; i++) {
+      limiter.onSuccess();
+    }
+    // the rate grows with the square root of the number of responses, as each response adds less
+    assertEquals(Math.sqrt(100 * 100 + 2 * 10 * 1000), limiter.getRate(), 0.5);
+  }
+
+  @Test
+  void increaseCappedAtMaxRate() {
+    var limiter = new AdaptiveRateLimiter(100, 1, 105, 10);
+    for (int i = 0; i < 1000; i++) {
+      limiter.onSuccess();
+    }
+    assertEquals(105, limiter.getRate());
+  }
+
+  @Test
+  void multiplicativeDecrease() {
+    var limiter = new AdaptiveRateLimiter(100, 30, 1000, 10);
+    limiter.onThrottled(Duration.ZERO);
+    assertEquals(50, limiter.getRate());
+    // the same burst of rejections
+    limiter.onThrottled(Duration.ZERO);
+    assertEquals(50, limiter.getRate());
+  }
+
+  @Test
+  void decreaseBoundedByMinRate() throws InterruptedException {
+    var limiter = new AdaptiveRateLimiter(100, 30, 1000, 10);
+    limiter.onThrottled(Duration.ZERO);
+    Thread.sleep(1100);
+    limiter.onThrottled(Duration.ZERO);
+    assertEquals(30, limiter.getRate());
+  }
+
+  @Test
+  void pausedWhenThrottled() {
+    var limiter = new AdaptiveRateLimiter(100, 1, 1000, 10);
+    assertTrue(limiter.acquire(ForkJoinPool.commonPool()).isDone());
+    limiter.onThrottled(Duration.ofSeconds(1));
+    var permit = limiter.acquire(ForkJoinPool.commonPool());
+    assertFalse(permit.isDone());
+    permit.join();
+  }
+
+  @Test
+  void pausedWhenNoRequestsRemain() {
+    var limiter = new AdaptiveRateLimiter(100, 1, 1000, 10);
+    limiter.onHeaders(headers(Map.of("X-RateLimit-Remaining", "1", "X-RateLimit-Reset", "1")));
+    assertTrue(limiter.acquire(ForkJoinPool.commonPool()).isDone());
+    limiter.onHeaders(headers(Map.of("X-RateLimit-Remaining", "0", "X-RateLimit-Reset", "1")));
+    assertFalse(limiter.acquire(ForkJoinPool.commonPool()).isDone());
+  }
+
+  @Test
+  void retryAfter() {
+    assertEquals(Optional.of(Duration.ofSeconds(3)),
+        AdaptiveRateLimiter.retryAfter(headers(Map.of("Retry-After", "3"))));
+    assertEquals(Optional.empty(), AdaptiveRateLimiter.retryAfter(headers(Map.of("Retry-After", "soon"))));
+    assertEquals(Optional.empty(), AdaptiveRateLimiter.retryAfter(headers(Map.of())));
+    String date = ZonedDateTime.now().plusSeconds(30).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+    Duration pause = AdaptiveRateLimiter.retryAfter(headers(Map.of("Retry-After", date))).orElseThrow();
+    assertTrue(pause.compareTo(Duration.ofSeconds(28)) > 0 && pause.compareTo(Duration.ofSeconds(30)) <= 0,
+        pause::toString);
+  }
+
+  private static HttpHeaders headers(Map<String, String> values) {
+    var map = new HashMap<String, List<String>>();
+    values.forEach((name, value) -> map.put(name, List.of(value)));
+    return HttpHeaders.of(map, (name, value) -> true);
+  }
+}
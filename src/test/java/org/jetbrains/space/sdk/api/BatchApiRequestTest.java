@@ -0,0 +1,209 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.space.sdk.datatype.TD_MemberProfile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchApiRequestTest {
+
+  private static final int PAGE_SIZE = 10;
+
+  /**
+   * Serves the profiles "p0", "p1", ... in pages of ten, the "next" field being the offset of the following page.
+   *
+   * @param count the number of profiles.
+   * @param totalCount the number of profiles reported by every page.
+   */
+  private static StubTransport.StubResponse page(SpaceTransport.Request request, int count, int totalCount) {
+    String skip = skip(request);
+    int from = skip == null ? 0 : Integer.parseInt(skip);
+    int end = Math.min(count, from + PAGE_SIZE);
+    return page(from, end, String.valueOf(end), totalCount);
+  }
+
+  private static StubTransport.StubResponse page(int from, int to, String next, int totalCount) {
+    var data = new ArrayList<String>();
+    for (int i = from; i < to; i++) {
+      data.add("{\"id\":\"p" + i + "\"}");
+    }
+    return StubTransport.response(200, "{\"next\":\"" + next + "\",\"totalCount\":" + totalCount + ",\"data\":["
+        + String.join(",", data) + "]}");
+  }
+
+  /**
+   * @return the "$skip" parameter of the request, null for the first page.
+   */
+  private static String skip(SpaceTransport.Request request) {
+    String query = URLDecoder.decode(request.getUri().getRawQuery(), StandardCharsets.UTF_8);
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith("$skip=")) {
+        return parameter.substring("$skip=".length());
+      }
+    }
+    return null;
+  }
+
+  private static List<String> ids(List<TD_MemberProfile> profiles) {
+    return profiles.stream().map(profile -> profile.id).collect(Collectors.toList());
+  }
+
+  private static List<String> expectedIds(int count) {
+    var res = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      res.add("p" + i);
+    }
+    return res;
+  }
+
+  /**
+   * Fetch all profiles serially and pipelined, and check that both return the same profiles with the same
+   * number of requests.
+   */
+  private static void assertPipelinedAsSerial(int count, int totalCount) throws Exception {
+    var transport = StubTransport.responding(request -> page(request, count, totalCount));
+    var service = transport.service().build();
+
+    List<String> serial = ids(service.getProfiles().execute());
+    int serialRequests = transport.getRequests().size();
+    assertEquals(expectedIds(count), serial);
+
+    for (int pages : new int[]{2, 3, 8}) {
+      transport.getRequests().clear();
+      assertEquals(serial, ids(service.getProfiles().setPagesInFlight(pages).execute()), "pages in flight: " + pages);
+      assertEquals(serialRequests, transport.getRequests().size(), "pages in flight: " + pages);
+    }
+  }
+
+  @Test
+  void singlePage() throws Exception {
+    assertPipelinedAsSerial(7, 7);
+  }
+
+  @Test
+  void manyPages() throws Exception {
+    assertPipelinedAsSerial(45, 45);
+  }
+
+  @Test
+  void emptyLastPage() throws Exception {
+    // the reported total is too high, the list ends with an empty page whose "next" is its own "$skip"
+    assertPipelinedAsSerial(30, 35);
+  }
+
+  @Test
+  void speculativePageCancelled() throws Exception {
+    int count = 25;
+    // the "next" field is opaque, so the header doesn't tell the last page
+    IntFunction<String> cursor = offset -> "cursor-" + offset;
+    var speculative = new CopyOnWriteArrayList<CompletableFuture<SpaceTransport.Response>>();
+    var transport = new StubTransport(request -> {
+      String skipCursor = skip(request);
+      int skip = skipCursor == null ? 0 : Integer.parseInt(skipCursor.substring("cursor-".length()));
+      if (skip >= count) {
+        var exchange = new CompletableFuture<SpaceTransport.Response>();
+        speculative.add(exchange);
+        return exchange;
+      }
+      int end = Math.min(count, skip + PAGE_SIZE);
+      return CompletableFuture.completedFuture(page(skip, end, cursor.apply(end), count));
+    });
+    var service = transport.service().build();
+
+    assertEquals(expectedIds(count), ids(service.getProfiles().setPagesInFlight(2).execute()));
+    assertEquals(expectedIds(count), ids(service.getProfiles().execute()));
+    // the serial mode doesn't speculate, the pipelined one requests a page past the end and aborts it
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (speculative.isEmpty() || !speculative.get(0).isCancelled()) {
+      assertTrue(System.nanoTime() < deadline, "the speculative exchange isn't aborted");
+      Thread.sleep(1);
+    }
+    assertEquals(1, speculative.size());
+  }
+
+  /**
+   * Serves an absence with the ID of each member of the "members" parameter, on a single page.
+   */
+  private static StubTransport.StubResponse absences(SpaceTransport.Request request) {
+    String query = URLDecoder.decode(request.getUri().getRawQuery(), StandardCharsets.UTF_8);
+    var data = new ArrayList<String>();
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith("members=")) {
+        data.add("{\"id\":\"" + parameter.substring("members=".length()) + "\"}");
+      }
+    }
+    return StubTransport.response(200, "{\"next\":\"" + data.size() + "\",\"totalCount\":" + data.size()
+        + ",\"data\":[" + String.join(",", data) + "]}");
+  }
+
+  private static List<String> members(int count) {
+    var res = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      res.add("m" + i);
+    }
+    return res;
+  }
+
+  private static int chunk(SpaceTransport.Request request) {
+    String query = URLDecoder.decode(request.getUri().getRawQuery(), StandardCharsets.UTF_8);
+    return query.contains("members=m40") ? 2 : query.contains("members=m20") ? 1 : 0;
+  }
+
+  @Test
+  void chunksInOrder() throws Exception {
+    var transport = new StubTransport(request -> {
+      var response = absences(request);
+      // the first chunk completes last
+      return chunk(request) == 0
+          ? CompletableFuture.supplyAsync(() -> response, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS))
+          : CompletableFuture.completedFuture(response);
+    });
+    var service = transport.service().build();
+
+    var absences = service.getAbsences("All").addParameterList("members", members(45)).setChunkParallelism(3)
+        .execute();
+    assertEquals(members(45), absences.stream().map(absence -> absence.id).collect(Collectors.toList()));
+    assertEquals(3, transport.getRequests().size());
+  }
+
+  @Test
+  void failedChunkAbortsOthers() throws Exception {
+    var pending = new CopyOnWriteArrayList<CompletableFuture<SpaceTransport.Response>>();
+    var firstSent = new CompletableFuture<Void>();
+    var transport = new StubTransport(request -> {
+      if (chunk(request) == 1) {
+        // fails once the first chunk is in flight
+        return firstSent.thenApply(sent -> StubTransport.response(400, ""));
+      }
+      var exchange = new CompletableFuture<SpaceTransport.Response>();
+      pending.add(exchange);
+      firstSent.complete(null);
+      return exchange;
+    });
+    var service = transport.service().build();
+
+    assertThrows(IOException.class, () -> service.getAbsences("All").addParameterList("members", members(45))
+        .setChunkParallelism(2).execute());
+    // the first chunk is aborted, the last one isn't started
+    assertEquals(1, pending.size());
+    assertEquals(2, transport.getRequests().size());
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (!pending.get(0).isCancelled()) {
+      assertTrue(System.nanoTime() < deadline, "the first chunk isn't aborted");
+      Thread.sleep(1);
+    }
+  }
+}
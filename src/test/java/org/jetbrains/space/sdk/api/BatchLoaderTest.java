@@ -0,0 +1,166 @@
+package org.jetbrains.space.sdk.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLoaderTest {
+
+  /**
+   * The batches requested from the loader, loaded when the test completes them.
+   */
+  private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+  private final List<CompletableFuture<Map<String, String>>> loads = new CopyOnWriteArrayList<>();
+
+  private BatchLoader<String, String> loader(Duration window, int maxBatchSize) {
+    return new BatchLoader<>(keys -> {
+      batches.add(keys);
+      var load = new CompletableFuture<Map<String, String>>();
+      loads.add(load);
+      return load;
+    }, window, maxBatchSize);
+  }
+
+  private static Map<String, String> upperCase(List<String> keys) {
+    var res = new HashMap<String, String>();
+    for (String key : keys) {
+      res.put(key, key.toUpperCase());
+    }
+    return res;
+  }
+
+  private void awaitBatches(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (batches.size() < count) {
+      assertTrue(System.nanoTime() < deadline, "batch not loaded");
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  void loadedTogetherAfterWindow() throws Exception {
+    var loader = loader(Duration.ofMillis(50), 100);
+    var a = loader.load("a");
+    var b = loader.load("b");
+    var a2 = loader.load("a");
+    assertTrue(batches.isEmpty());
+
+    awaitBatches(1);
+    assertEquals(List.of("a", "b"), batches.get(0));
+    loads.get(0).complete(upperCase(batches.get(0)));
+    assertEquals("A", a.get(5, TimeUnit.SECONDS));
+    assertEquals("B", b.get(5, TimeUnit.SECONDS));
+    assertEquals("A", a2.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void fullBatchLoadedAtOnce() {
+    var loader = loader(Duration.ofHours(1), 2);
+    loader.load("a");
+    loader.load("b");
+    assertEquals(List.of(List.of("a", "b")), batches);
+
+    loader.load("c");
+    assertEquals(1, batches.size());
+    loader.dispatch();
+    assertEquals(List.of(List.of("a", "b"), List.of("c")), batches);
+  }
+
+  @Test
+  void missingValueNotFound() throws Exception {
+    var loader = loader(Duration.ofHours(1), 2);
+    var a = loader.load("a");
+    var b = loader.load("b");
+    loads.get(0).complete(Map.of("a", "A"));
+
+    assertEquals("A", a.get(5, TimeUnit.SECONDS));
+    var error = assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(ObjectNotFoundException.class, error.getCause());
+  }
+
+  @Test
+  void failedBatchFailsAllLookups() {
+    var loader = loader(Duration.ofHours(1), 2);
+    var a = loader.load("a");
+    var b = loader.load("b");
+    var failure = new IOException("failed");
+    loads.get(0).completeExceptionally(failure);
+
+    assertSame(failure, assertThrows(ExecutionException.class, a::get).getCause());
+    assertSame(failure, assertThrows(ExecutionException.class, b::get).getCause());
+  }
+
+  @Test
+  void cancelledLookupAlone() throws Exception {
+    var loader = loader(Duration.ofHours(1), 3);
+    var cancelled = loader.load("a");
+    var other = loader.load("a");
+    cancelled.cancel(true);
+    loader.load("b");
+    loader.dispatch();
+
+    loads.get(0).complete(upperCase(batches.get(0)));
+    assertEquals("A", other.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void profileLoader() throws Exception {
+    var transport = StubTransport.responding(request -> {
+      String path = request.getUri().getPath();
+      String id = path.substring(path.indexOf("id:") + 3);
+      return id.equals("missing")
+          ? StubTransport.response(404, "")
+          : StubTransport.response(200, "{\"id\":\"" + id + "\"}");
+    });
+    var loader = transport.service().build().newProfileLoader();
+
+    var x = loader.load("x");
+    var missing = loader.load("missing");
+    assertEquals("x", x.get(5, TimeUnit.SECONDS).id);
+    var error = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(ObjectNotFoundException.class, error.getCause());
+    assertEquals(2, transport.getRequests().size());
+  }
+
+  @Test
+  void failedProfileLookupAbortsOthers() throws Exception {
+    var slowSent = new CompletableFuture<SpaceTransport.Response>();
+    var slow = new CompletableFuture<SpaceTransport.Response>();
+    var transport = new StubTransport(request -> {
+      if (request.getUri().getPath().endsWith("id:slow")) {
+        slowSent.complete(null);
+        return slow;
+      }
+      // fails once the slow lookup is in flight
+      return slowSent.thenApply(sent -> StubTransport.response(400, ""));
+    });
+    var loader = transport.service().build().newProfileLoader();
+
+    var slowProfile = loader.load("slow");
+    var failingProfile = loader.load("failing");
+    assertInstanceOf(IOException.class, assertThrows(ExecutionException.class,
+        () -> failingProfile.get(5, TimeUnit.SECONDS)).getCause());
+    assertInstanceOf(IOException.class, assertThrows(ExecutionException.class,
+        () -> slowProfile.get(5, TimeUnit.SECONDS)).getCause());
+    // the other lookups are aborted after the batch fails
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!slow.isCancelled()) {
+      assertTrue(System.nanoTime() < deadline, "the slow lookup isn't aborted");
+      Thread.sleep(1);
+    }
+  }
+}
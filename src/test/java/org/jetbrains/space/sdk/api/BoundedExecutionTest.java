@@ -0,0 +1,96 @@
+package org.jetbrains.space.sdk.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedExecutionTest {
+
+  /**
+   * Tasks that complete when the test completes them.
+   */
+  private static class Tasks {
+    private final List<CompletableFuture<Integer>> started = new ArrayList<>();
+    private final AtomicInteger maxInProgress = new AtomicInteger();
+
+    private List<Supplier<CompletableFuture<Integer>>> create(int count) {
+      var res = new ArrayList<Supplier<CompletableFuture<Integer>>>();
+      for (int i = 0; i < count; i++) {
+        res.add(() -> {
+          var task = new CompletableFuture<Integer>();
+          started.add(task);
+          int inProgress = (int) started.stream().filter(other -> !other.isDone()).count();
+          maxInProgress.accumulateAndGet(inProgress, Math::max);
+          return task;
+        });
+      }
+      return res;
+    }
+  }
+
+  @Test
+  void resultsInTaskOrder() throws Exception {
+    var tasks = new Tasks();
+    var result = BoundedExecution.run(tasks.create(3), 3);
+    // completed in reverse order
+    for (int i = 2; i >= 0; i--) {
+      tasks.started.get(i).complete(i);
+    }
+    assertEquals(List.of(0, 1, 2), result.get());
+  }
+
+  @Test
+  void parallelismBound() throws Exception {
+    var tasks = new Tasks();
+    var result = BoundedExecution.run(tasks.create(10), 3);
+    assertEquals(3, tasks.started.size());
+    for (int i = 0; i < 10; i++) {
+      assertFalse(result.isDone());
+      tasks.started.get(i).complete(i);
+      assertEquals(Math.min(10, i + 4), tasks.started.size());
+    }
+    assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), result.get());
+    assertEquals(3, tasks.maxInProgress.get());
+  }
+
+  @Test
+  void failFast() {
+    var tasks = new Tasks();
+    var result = BoundedExecution.run(tasks.create(10), 3);
+    var failure = new IOException("failed");
+    tasks.started.get(1).completeExceptionally(failure);
+
+    var error = assertThrows(ExecutionException.class, result::get);
+    assertSame(failure, error.getCause());
+    // the others are cancelled, and no more tasks are started
+    assertTrue(tasks.started.get(0).isCancelled());
+    assertTrue(tasks.started.get(2).isCancelled());
+    assertEquals(3, tasks.started.size());
+  }
+
+  @Test
+  void cancelled() {
+    var tasks = new Tasks();
+    var result = BoundedExecution.run(tasks.create(10), 3);
+    result.cancel(true);
+
+    assertThrows(CancellationException.class, result::join);
+    for (var task : tasks.started) {
+      assertTrue(task.isCancelled());
+    }
+    assertEquals(3, tasks.started.size());
+  }
+}
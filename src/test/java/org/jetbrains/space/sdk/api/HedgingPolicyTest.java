@@ -0,0 +1,123 @@
+package org.jetbrains.space.sdk.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingPolicyTest {
+
+    private static final String TEMPLATE = "/api/http/absences";
+    private static final SpaceTransport.Request REQUEST = new SpaceTransport.Request("GET",
+            URI.create(StubTransport.BASE_URI + TEMPLATE), Map.of(), null);
+
+    private final Executor executor = ForkJoinPool.commonPool();
+    private final HedgingPolicy policy = new HedgingPolicy(0.5, 1).setMinDelay(Duration.ofMillis(20));
+    /**
+     * The attempts sent by the policy, completed by the tests.
+     */
+    private final BlockingQueue<CompletableFuture<SpaceTransport.Response>> attempts = new LinkedBlockingQueue<>();
+    private final StubTransport transport = new StubTransport(request -> {
+        var attempt = new CompletableFuture<SpaceTransport.Response>();
+        attempts.add(attempt);
+        return attempt;
+    });
+
+    /**
+     * Observe enough fast responses for the policy to hedge the next request after the minimum delay.
+     */
+    @BeforeEach
+    void observeLatencies() {
+        var fast = StubTransport.responding(request -> StubTransport.response(200, "{}"));
+        for (int i = 0; i < 50; i++) {
+            policy.send(fast, REQUEST, TEMPLATE, executor).join();
+        }
+    }
+
+    /**
+     * @return the next attempt, once the policy awaits it.
+     */
+    private CompletableFuture<SpaceTransport.Response> nextAttempt() throws InterruptedException {
+        var attempt = attempts.poll(5, TimeUnit.SECONDS);
+        assertNotNull(attempt, "attempt not sent");
+        while (attempt.getNumberOfDependents() == 0) {
+            Thread.sleep(1);
+        }
+        return attempt;
+    }
+
+    @Test
+    void hedgeWinsAfterOriginalFailed() throws Exception {
+        var result = policy.send(transport, REQUEST, TEMPLATE, executor);
+        var original = nextAttempt();
+        var hedge = nextAttempt();
+        var failed = StubTransport.response(503, "");
+        var succeeded = StubTransport.response(200, "{}");
+        original.complete(failed);
+        hedge.complete(succeeded);
+
+        assertSame(succeeded, result.get(5, TimeUnit.SECONDS));
+        assertTrue(failed.isClosed(), "the failed response is discarded");
+        assertFalse(succeeded.isClosed());
+        assertEquals(1, policy.getHedges());
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    void originalWinsAfterHedgeFailed() throws Exception {
+        var result = policy.send(transport, REQUEST, TEMPLATE, executor);
+        var original = nextAttempt();
+        var hedge = nextAttempt();
+        var failed = StubTransport.response(503, "");
+        var succeeded = StubTransport.response(200, "{}");
+        hedge.complete(failed);
+        original.complete(succeeded);
+
+        assertSame(succeeded, result.get(5, TimeUnit.SECONDS));
+        assertTrue(failed.isClosed(), "the failed response is discarded");
+        assertFalse(succeeded.isClosed());
+        assertEquals(1, policy.getHedges());
+        assertEquals(0, policy.getHedgeWins());
+    }
+
+    @Test
+    void firstFailureReturnedIfBothFail() throws Exception {
+        var result = policy.send(transport, REQUEST, TEMPLATE, executor);
+        var original = nextAttempt();
+        var hedge = nextAttempt();
+        var first = StubTransport.response(503, "");
+        var second = StubTransport.response(502, "");
+        original.complete(first);
+        hedge.complete(second);
+
+        assertSame(first, result.get(5, TimeUnit.SECONDS));
+        assertFalse(first.isClosed());
+        assertTrue(second.isClosed(), "the other failed response is discarded");
+    }
+
+    @Test
+    void loserCancelled() throws Exception {
+        var result = policy.send(transport, REQUEST, TEMPLATE, executor);
+        var original = nextAttempt();
+        var hedge = nextAttempt();
+        var succeeded = StubTransport.response(200, "{}");
+        original.complete(succeeded);
+
+        assertSame(succeeded, result.get(5, TimeUnit.SECONDS));
+        assertTrue(hedge.isCancelled());
+    }
+}
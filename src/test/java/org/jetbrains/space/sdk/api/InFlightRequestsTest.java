@@ -0,0 +1,107 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.space.sdk.datatype.TD_MemberProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InFlightRequestsTest {
+
+    /**
+     * The exchanges sent by the service, completed by the tests.
+     */
+    private final List<CompletableFuture<SpaceTransport.Response>> exchanges = new CopyOnWriteArrayList<>();
+    private final SpaceService service = new StubTransport(request -> {
+        var exchange = new CompletableFuture<SpaceTransport.Response>();
+        exchanges.add(exchange);
+        return exchange;
+    }).service().build();
+
+    /**
+     * @return the exchange, once it is sent after the token is received.
+     */
+    private CompletableFuture<SpaceTransport.Response> exchange(int index) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (exchanges.size() <= index) {
+            assertTrue(System.nanoTime() < deadline, "exchange " + index + " not sent");
+            Thread.sleep(1);
+        }
+        return exchanges.get(index);
+    }
+
+    private static SpaceTransport.Response profile(String id) {
+        return StubTransport.response(200, "{\"id\":\"" + id + "\"}");
+    }
+
+    @Test
+    void identicalRequestsCoalesced() throws Exception {
+        var profiles = new ArrayList<CompletableFuture<TD_MemberProfile>>();
+        for (int i = 0; i < 5; i++) {
+            profiles.add(service.getProfile("x").executeAsync());
+        }
+        exchange(0).complete(profile("x"));
+
+        var first = profiles.get(0).get(5, TimeUnit.SECONDS);
+        for (var profile : profiles) {
+            assertSame(first, profile.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, exchanges.size());
+        assertEquals(4, service.getCoalescedRequests());
+        assertEquals(0.8, service.getDedupeRatio(), 1e-9);
+    }
+
+    @Test
+    void differentRequestsNotCoalesced() throws Exception {
+        service.getProfile("x").executeAsync();
+        service.getProfile("y").executeAsync();
+        service.getProfile("x").addField("managers", "username").executeAsync();
+        exchange(2);
+        assertEquals(0, service.getCoalescedRequests());
+    }
+
+    @Test
+    void completedRequestNotShared() throws Exception {
+        var first = service.getProfile("x").executeAsync();
+        exchange(0).complete(profile("x"));
+        first.get(5, TimeUnit.SECONDS);
+
+        service.getProfile("x").executeAsync();
+        exchange(1);
+    }
+
+    @Test
+    void callerCancelledAlone() throws Exception {
+        var cancelled = service.getProfile("x").executeAsync();
+        var other = service.getProfile("x").executeAsync();
+        var exchange = exchange(0);
+        cancelled.cancel(true);
+
+        assertFalse(exchange.isDone());
+        exchange.complete(profile("x"));
+        assertEquals("x", other.get(5, TimeUnit.SECONDS).id);
+    }
+
+    @Test
+    void exchangeAbortedWhenAllCallersCancelled() throws Exception {
+        var first = service.getProfile("x").executeAsync();
+        var second = service.getProfile("x").executeAsync();
+        var exchange = exchange(0);
+        first.cancel(true);
+        second.cancel(true);
+        assertTrue(exchange.isCancelled());
+
+        // a new identical request doesn't join the cancelled one
+        var third = service.getProfile("x").executeAsync();
+        exchange(1).complete(profile("x"));
+        assertEquals("x", third.get(5, TimeUnit.SECONDS).id);
+    }
+}
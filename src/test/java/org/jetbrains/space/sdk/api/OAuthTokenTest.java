@@ -0,0 +1,96 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.space.sdk.datatype.TD_MemberProfile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The OAuth token of a service is requested by a single request at a time, whatever the number of requests
+ * waiting for it.
+ */
+class OAuthTokenTest {
+
+    private static final String PROFILE = "{\"id\":\"x\"}";
+
+    /**
+     * Start concurrent requests, for different profiles so that they aren't coalesced.
+     */
+    private static List<CompletableFuture<TD_MemberProfile>> requestProfiles(SpaceService service, int count) {
+        var res = new ArrayList<CompletableFuture<TD_MemberProfile>>();
+        for (int i = 0; i < count; i++) {
+            res.add(service.getProfile("p" + i).executeAsync());
+        }
+        return res;
+    }
+
+    @Test
+    void singleTokenRequest() throws Exception {
+        var transport = StubTransport.responding(request -> StubTransport.response(200, PROFILE));
+        var gate = new CompletableFuture<Void>();
+        transport.setTokenGate(gate);
+        var service = transport.service().build();
+
+        var profiles = requestProfiles(service, 20);
+        assertEquals(1, transport.getTokenRequests());
+        gate.complete(null);
+        for (var profile : profiles) {
+            profile.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, transport.getTokenRequests());
+        assertEquals(20, transport.getRequests().size());
+        for (var request : transport.getRequests()) {
+            assertEquals("Bearer token-1", request.getHeader("Authorization"));
+        }
+    }
+
+    @Test
+    void singleRefreshAfterRejection() throws Exception {
+        // the first token is rejected by the server
+        var transport = StubTransport.responding(request -> "Bearer token-1".equals(request.getHeader("Authorization"))
+                ? StubTransport.response(401, "")
+                : StubTransport.response(200, PROFILE));
+        var gate = new CompletableFuture<Void>();
+        transport.setTokenGate(gate);
+        var service = transport.service().build();
+
+        var profiles = requestProfiles(service, 20);
+        gate.complete(null);
+        for (var profile : profiles) {
+            profile.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, transport.getTokenRequests());
+        assertEquals(40, transport.getRequests().size());
+    }
+
+    @Test
+    void failedTokenRequestRetriedLater() throws Exception {
+        var transport = StubTransport.responding(request -> StubTransport.response(200, PROFILE));
+        var gate = new CompletableFuture<Void>();
+        transport.setTokenGate(gate);
+        var service = transport.service().build();
+
+        var profiles = requestProfiles(service, 5);
+        gate.completeExceptionally(new IOException("token endpoint down"));
+        for (var profile : profiles) {
+            var error = assertThrows(ExecutionException.class, () -> profile.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, error.getCause());
+        }
+        assertEquals(1, transport.getTokenRequests());
+        assertTrue(transport.getRequests().isEmpty());
+
+        transport.setTokenGate(CompletableFuture.completedFuture(null));
+        assertEquals("x", service.getProfile("p0").execute().id);
+        assertEquals(2, transport.getTokenRequests());
+    }
+}
@@ -0,0 +1,112 @@
+package org.jetbrains.space.sdk.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheTest {
+
+    private static final String PROFILE = "{\"id\":\"x\",\"managers\":[{\"id\":\"m\",\"username\":\"boss\"}]}";
+
+    private final StubTransport transport = StubTransport.responding(request -> StubTransport.response(200, PROFILE));
+
+    private SpaceService service(ResponseCache cache) {
+        return transport.service().setResponseCache(cache).build();
+    }
+
+    @Test
+    void servedFromCache() throws Exception {
+        var cache = new ResponseCache(10, Duration.ofMinutes(1));
+        var service = service(cache);
+
+        assertEquals("x", service.getProfile("x").execute().id);
+        assertEquals("x", service.getProfile("x").execute().id);
+        assertEquals(1, transport.getRequests().size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void servedForSubsetOfFields() throws Exception {
+        var service = service(new ResponseCache(10, Duration.ofMinutes(1)));
+
+        // cached with more fields, then requested with fewer
+        service.getProfile("x").addField("managers", "username").execute();
+        service.getProfile("x").execute();
+        assertEquals(1, transport.getRequests().size());
+
+        // cached with fewer fields, then requested with more
+        service.getProfile("y").execute();
+        var profile = service.getProfile("y").addField("managers", "username").execute();
+        assertEquals(3, transport.getRequests().size());
+        assertEquals("boss", profile.managers.get(0).username);
+    }
+
+    @Test
+    void expiresAfterTtl() throws Exception {
+        var service = service(new ResponseCache(10, Duration.ofMillis(50)));
+
+        service.getProfile("x").execute();
+        Thread.sleep(100);
+        service.getProfile("x").execute();
+        assertEquals(2, transport.getRequests().size());
+    }
+
+    @Test
+    void onlyEndpointsWithTtl() throws Exception {
+        var cache = new ResponseCache(10, Duration.ZERO).setTtl("/api/http/public-holidays", Duration.ofMinutes(1));
+        var service = service(cache);
+
+        service.getProfile("x").execute();
+        service.getProfile("x").execute();
+        assertEquals(2, transport.getRequests().size());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void longestPrefixWins() {
+        var cache = new ResponseCache(10, Duration.ofMinutes(1))
+                .setTtl("/api/http/team-directory", Duration.ZERO)
+                .setTtl("/api/http/team-directory/profiles", Duration.ofSeconds(5));
+        assertEquals(Duration.ofSeconds(5), cache.ttl("/api/http/team-directory/profiles/id:x"));
+        assertEquals(Duration.ZERO, cache.ttl("/api/http/team-directory/member-locations"));
+        assertEquals(Duration.ofMinutes(1), cache.ttl("/api/http/absences"));
+    }
+
+    @Test
+    void leastRecentlyUsedEvicted() {
+        var cache = new ResponseCache(2, Duration.ofMinutes(1));
+        Duration ttl = Duration.ofMinutes(1);
+        cache.put("a", null, body("a"), ttl);
+        cache.put("b", null, body("b"), ttl);
+        assertNotNull(cache.get("a", null));
+        cache.put("c", null, body("c"), ttl);
+
+        assertNull(cache.get("b", null));
+        assertArrayEquals(body("a"), cache.get("a", null));
+        assertArrayEquals(body("c"), cache.get("c", null));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void canonicalKey() {
+        var parameters = new LinkedHashMap<String, Object>();
+        parameters.put("b", "2");
+        parameters.put("a", "1");
+        parameters.put("$fields", "id");
+        assertEquals(ResponseCache.key("/api/http/absences", Map.of("a", "1", "b", "2")),
+                ResponseCache.key("/api/http/absences", parameters));
+    }
+
+    private static byte[] body(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
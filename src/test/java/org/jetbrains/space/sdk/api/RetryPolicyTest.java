@@ -0,0 +1,109 @@
+package org.jetbrains.space.sdk.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+  private static final Duration FAST = Duration.ofMillis(1);
+
+  @Test
+  void jitteredBackOff() {
+    var policy = new RetryPolicy().setBackOff(Duration.ofMillis(100), Duration.ofSeconds(1));
+    Set<Duration> delays = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      Duration first = policy.nextDelay(null);
+      assertTrue(first.compareTo(Duration.ofMillis(100)) >= 0 && first.compareTo(Duration.ofMillis(300)) <= 0,
+          first::toString);
+      delays.add(first);
+      Duration next = policy.nextDelay(Duration.ofMillis(200));
+      assertTrue(next.compareTo(Duration.ofMillis(100)) >= 0 && next.compareTo(Duration.ofMillis(600)) <= 0,
+          next::toString);
+      assertTrue(policy.nextDelay(Duration.ofMillis(900)).compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+    assertTrue(delays.size() > 1, "the delays are random");
+  }
+
+  @Test
+  void serverErrorsRetriedUpToMaxRetries() {
+    var transport = StubTransport.responding(request -> StubTransport.response(503, ""));
+    var service = transport.service().setRetryPolicy(new RetryPolicy().setMaxRetries(2).setBackOff(FAST, FAST))
+        .build();
+
+    var error = assertThrows(IOException.class, () -> service.getProfile("x").execute());
+    assertEquals(IOException.class, error.getClass());
+    assertEquals(3, transport.getRequests().size());
+  }
+
+  @Test
+  void retryBudgetLimitsRetries() {
+    var transport = StubTransport.responding(request -> StubTransport.response(503, ""));
+    var policy = new RetryPolicy().setMaxRetries(5).setBackOff(FAST, FAST).setRetryBudget(0, 1);
+    var service = transport.service().setRetryPolicy(policy).build();
+
+    assertThrows(IOException.class, () -> service.getProfile("x").execute());
+    // the budget allows a single retry, and isn't replenished
+    assertEquals(2, transport.getRequests().size());
+    assertEquals(1, policy.getBudgetExhausted());
+  }
+
+  @Test
+  void throttledRetriesChargedToBudget() {
+    var transport = StubTransport.responding(request -> StubTransport.response(429, ""));
+    var policy = new RetryPolicy().setBackOff(FAST, FAST).setRetryBudget(0, 1);
+    var service = transport.service().setRetryPolicy(policy).build();
+
+    assertThrows(IOException.class, () -> service.getProfile("x").execute());
+    assertEquals(2, transport.getRequests().size());
+    assertEquals(1, policy.getBudgetExhausted());
+  }
+
+  @Test
+  void throttledRetriesPacedByRateLimiter() throws Exception {
+    var attempts = new AtomicInteger();
+    var transport = StubTransport.responding(request -> attempts.incrementAndGet() <= 3
+        ? StubTransport.response(429, "")
+        : StubTransport.response(200, "{\"id\":\"x\"}"));
+    var policy = new RetryPolicy().setBackOff(FAST, FAST).setRetryBudget(0, 1);
+    var service = transport.service().setRetryPolicy(policy).setRequestRate(1000, 1000).build();
+
+    assertEquals("x", service.getProfile("x").execute().id);
+    assertEquals(4, transport.getRequests().size());
+    assertEquals(0, policy.getBudgetExhausted());
+  }
+
+  @Test
+  void retryNotStartedAfterDeadline() {
+    var transport = StubTransport.responding(request -> StubTransport.response(503, ""));
+    var policy = new RetryPolicy().setBackOff(Duration.ofSeconds(5), Duration.ofSeconds(5))
+        .setTimeout(Duration.ofMillis(500));
+    var service = transport.service().setRetryPolicy(policy).build();
+
+    long start = System.nanoTime();
+    assertThrows(HttpTimeoutException.class, () -> service.getProfile("x").execute());
+    assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos(), "failed without waiting");
+    assertEquals(1, transport.getRequests().size());
+  }
+
+  @Test
+  void retryAfterBeyondDeadline() {
+    var transport = StubTransport.responding(request -> StubTransport.response(429, "", "Retry-After", "5"));
+    var service = transport.service().setRetryPolicy(new RetryPolicy().setTimeout(Duration.ofMillis(500)))
+        .build();
+
+    long start = System.nanoTime();
+    assertThrows(HttpTimeoutException.class, () -> service.getProfile("x").execute());
+    assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos(), "failed without waiting");
+    assertEquals(1, transport.getRequests().size());
+  }
+}
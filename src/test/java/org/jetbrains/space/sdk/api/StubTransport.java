@@ -0,0 +1,132 @@
+package org.jetbrains.space.sdk.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A transport for the tests, without a server: the token requests are granted, right away unless they are held
+ * back, and the other requests are answered by the given handler.
+ */
+class StubTransport implements SpaceTransport {
+
+    static final URI BASE_URI = URI.create("http://space.test");
+
+    private final @NotNull Function<Request, CompletableFuture<Response>> handler;
+    private final @NotNull List<Request> requests = new CopyOnWriteArrayList<>();
+    private final @NotNull AtomicInteger tokenRequests = new AtomicInteger();
+    private volatile @NotNull CompletableFuture<Void> tokenGate = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param handler the future response to a request, completed whenever the test wants.
+     */
+    StubTransport(@NotNull Function<Request, CompletableFuture<Response>> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @param handler the response to a request, returned right away.
+     */
+    static @NotNull StubTransport responding(@NotNull Function<Request, Response> handler) {
+        return new StubTransport(request -> CompletableFuture.completedFuture(handler.apply(request)));
+    }
+
+    /**
+     * @return a builder of a service using this transport.
+     */
+    @NotNull SpaceService.Builder service() {
+        return SpaceService.builder().setBaseUri(BASE_URI).setServiceCredentials("service-id", "service-secret")
+                .setTransport(this);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Response> send(@NotNull Request request) {
+        if (request.getUri().getPath().equals("/oauth/token")) {
+            int token = tokenRequests.incrementAndGet();
+            return tokenGate.thenApply(ignored -> response(200,
+                    "{\"access_token\":\"token-" + token + "\",\"expires_in\":3600}"));
+        }
+        requests.add(request);
+        return handler.apply(request);
+    }
+
+    /**
+     * @return the requests sent so far, except the token requests.
+     */
+    @NotNull List<Request> getRequests() {
+        return requests;
+    }
+
+    int getTokenRequests() {
+        return tokenRequests.get();
+    }
+
+    /**
+     * @param tokenGate the token requests are granted when it completes, and fail if it fails.
+     */
+    void setTokenGate(@NotNull CompletableFuture<Void> tokenGate) {
+        this.tokenGate = tokenGate;
+    }
+
+    /**
+     * @param headers the names and values of the headers, alternately.
+     */
+    static @NotNull StubResponse response(int statusCode, @NotNull String body, @NotNull String... headers) {
+        var map = new HashMap<String, List<String>>();
+        for (int i = 0; i < headers.length; i += 2) {
+            map.put(headers[i], List.of(headers[i + 1]));
+        }
+        return new StubResponse(statusCode, HttpHeaders.of(map, (name, value) -> true),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A response which tells whether its body has been closed, i.e. whether it has been consumed or discarded.
+     */
+    static class StubResponse implements Response {
+        private final int statusCode;
+        private final @NotNull HttpHeaders headers;
+        private final @NotNull InputStream body;
+        private volatile boolean closed = false;
+
+        private StubResponse(int statusCode, @NotNull HttpHeaders headers, byte @NotNull [] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = new ByteArrayInputStream(body) {
+                @Override
+                public void close() {
+                    closed = true;
+                }
+            };
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public @NotNull HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public @NotNull InputStream getBody() {
+            return body;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.jetbrains.space.sdk.datatype;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.jetbrains.space.sdk.api.SpaceService;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CFValueTest {
+
+  private static final Gson GSON = SpaceService.GSON;
+
+  @Test
+  void classNameFirst() {
+    var value = GSON.fromJson("{\"className\":\"EnumCFValue\",\"value\":{\"id\":\"1\",\"value\":\"a\"}}",
+        CFValue.class);
+    var enumValue = assertInstanceOf(EnumCFValue.class, value);
+    assertEquals("1", enumValue.getId());
+    assertEquals("a", enumValue.getValue());
+  }
+
+  @Test
+  void classNameLast() {
+    var value = GSON.fromJson("{\"value\":{\"id\":\"1\",\"value\":\"a\"},\"other\":[1],\"className\":\"EnumCFValue\"}",
+        CFValue.class);
+    var enumValue = assertInstanceOf(EnumCFValue.class, value);
+    assertEquals("1", enumValue.getId());
+    assertEquals("a", enumValue.getValue());
+
+    var values = GSON.fromJson("{\"values\":[1,2],\"className\":\"IntListCFValue\"}", CFValue.class);
+    assertInstanceOf(IntListCFValue.class, values);
+    assertEquals(List.of(1, 2), values.getValues());
+  }
+
+  @Test
+  void typedValues() {
+    assertEquals(42, GSON.fromJson("{\"className\":\"IntCFValue\",\"value\":42}", CFValue.class).getValue());
+    assertEquals(true, GSON.fromJson("{\"className\":\"BooleanCFValue\",\"value\":true}", CFValue.class).getValue());
+    assertEquals(LocalDate.of(2020, 1, 31),
+        GSON.fromJson("{\"className\":\"DateCFValue\",\"value\":{\"iso\":\"2020-01-31\"}}", CFValue.class).getValue());
+    assertEquals(LocalDateTime.of(2021, 2, 9, 18, 0), GSON.fromJson(
+        "{\"className\":\"DateTimeCFValue\",\"value\":{\"iso\":\"2021-02-09T18:00:00\",\"timestamp\":1}}",
+        CFValue.class).getValue());
+    assertEquals(List.of("x", "y"),
+        GSON.fromJson("{\"className\":\"StringListCFValue\",\"values\":[\"x\",\"y\"]}", CFValue.class).getValues());
+  }
+
+  @Test
+  void datesRoundTrip() {
+    assertRoundTrip("{\"className\":\"DateCFValue\",\"value\":{\"iso\":\"2020-01-31\"}}");
+    assertRoundTrip("{\"className\":\"DateTimeCFValue\",\"value\":{\"iso\":\"2021-02-09T18:00:30\"}}");
+  }
+
+  @Test
+  void missingClassName() {
+    assertThrows(JsonSyntaxException.class, () -> GSON.fromJson("{\"value\":\"a\"}", CFValue.class));
+  }
+
+  @Test
+  void wrongType() {
+    assertThrows(JsonSyntaxException.class,
+        () -> GSON.fromJson("{\"className\":\"EnumCFValue\",\"value\":null}", StringCFValue.class));
+  }
+
+  @Test
+  void unknownClassName() {
+    String json = "{\"className\":\"UnknownCFValue\",\"value\":{\"k\":\"v\"},\"values\":[\"a\",1.5]}";
+    var value = GSON.fromJson(json, CFValue.class);
+    assertSame(CFValue.class, value.getClass());
+    assertRoundTrip(json);
+    // the same when buffered
+    assertEquals(JsonParser.parseString(json), JsonParser.parseString(GSON.toJson(GSON.fromJson(
+        "{\"values\":[\"a\",1.5],\"value\":{\"k\":\"v\"},\"className\":\"UnknownCFValue\"}", CFValue.class))));
+  }
+
+  @Test
+  void nullEnumValue() {
+    var value = GSON.fromJson("{\"className\":\"EnumCFValue\",\"value\":null}", CFValue.class);
+    var enumValue = assertInstanceOf(EnumCFValue.class, value);
+    assertNull(enumValue.getId());
+    assertNull(enumValue.getValue());
+
+    var roundTrip = assertInstanceOf(EnumCFValue.class, GSON.fromJson(GSON.toJson(value), CFValue.class));
+    assertNull(roundTrip.getId());
+    assertNull(roundTrip.getValue());
+  }
+
+  @Test
+  void enumList() {
+    String json = "{\"className\":\"EnumListCFValue\","
+        + "\"values\":[{\"id\":\"1\",\"value\":\"a\"},{\"id\":\"2\",\"value\":\"b\"}]}";
+    var value = GSON.fromJson(json, CFValue.class);
+    var enumList = assertInstanceOf(EnumListCFValue.class, value);
+    assertEquals(2, enumList.getValues().size());
+    assertEquals("2", enumList.getValues().get(1).getId());
+    assertEquals("b", enumList.getValues().get(1).getValue());
+    assertRoundTrip(json);
+  }
+
+  @Test
+  void cast() {
+    var value = GSON.fromJson("{\"className\":\"StringCFValue\",\"value\":\"s\"}", CFValue.class);
+    assertSame(value, value.cast());
+  }
+
+  private static void assertRoundTrip(String json) {
+    assertEquals(JsonParser.parseString(json), JsonParser.parseString(GSON.toJson(GSON.fromJson(json, CFValue.class))));
+  }
+}
@@ -0,0 +1,110 @@
+package org.jetbrains.space.sdk.datatype;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The generated adapters must read and write the data types exactly as the reflective adapters of Gson.
+ */
+class DatatypeAdaptersTest {
+
+  private static final Path FIXTURES = Path.of("benchmarks", "src", "main", "resources", "fixtures");
+
+  private static final Gson REFLECTIVE = builder().create();
+  private static final Gson GENERATED = builder().registerTypeAdapterFactory(DatatypeAdapters.ADAPTER_FACTORY).create();
+
+  /**
+   * The dates are read as the SDK reads them, and written as strings, so that they can be compared.
+   */
+  private static GsonBuilder builder() {
+    return new GsonBuilder()
+        .registerTypeAdapter(LocalDate.class, dateAdapter(LocalDate::parse))
+        .registerTypeAdapter(LocalDateTime.class, dateAdapter(LocalDateTime::parse))
+        .registerTypeAdapterFactory(CFValue.ADAPTER_FACTORY);
+  }
+
+  private static <T> TypeAdapter<T> dateAdapter(Function<String, T> parse) {
+    return new TypeAdapter<T>() {
+      @Override
+      public void write(JsonWriter out, T value) throws IOException {
+        out.value(value.toString());
+      }
+
+      @Override
+      public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+          return parse.apply(in.nextString());
+        }
+        String iso = null;
+        in.beginObject();
+        while (in.hasNext()) {
+          if (in.nextName().equals("iso")) {
+            iso = in.nextString();
+          } else {
+            in.skipValue();
+          }
+        }
+        in.endObject();
+        return iso == null ? null : parse.apply(iso);
+      }
+    }.nullSafe();
+  }
+
+  @Test
+  void generatedAdaptersAreUsed() {
+    assertEquals(DatatypeAdapters.class, GENERATED.getAdapter(TD_MemberProfile.class).getClass().getEnclosingClass());
+    assertEquals(DatatypeAdapters.class, GENERATED.getAdapter(AbsenceRecord.class).getClass().getEnclosingClass());
+  }
+
+  @Test
+  void profilesPage() throws IOException {
+    assertSameAsReflective(Files.readString(FIXTURES.resolve("profiles-page.json")),
+        new TypeToken<BatchResponse<TD_MemberProfile>>() {}.getType());
+  }
+
+  @Test
+  void absencesPage() throws IOException {
+    assertSameAsReflective(Files.readString(FIXTURES.resolve("absences-page.json")),
+        new TypeToken<BatchResponse<AbsenceRecord>>() {}.getType());
+  }
+
+  @Test
+  void unknownFieldsNullsAndStrings() {
+    assertSameAsReflective("{\"id\":\"x\",\"notAMember\":\"true\",\"unknown\":{\"a\":[1,{\"b\":null}]},"
+        + "\"name\":{\"firstName\":true,\"lastName\":null},\"managers\":[{\"id\":\"m\",\"notAMember\":null}]}",
+        TD_MemberProfile.class);
+    assertSameAsReflective("{\"carriedOver2x\":\"4\",\"total2x\":null}", AvailableVacationDays.class);
+    assertSameAsReflective("[{\"id\":\"t\",\"parent\":{\"id\":\"p\"}},null]",
+        new TypeToken<List<TD_Team>>() {}.getType());
+  }
+
+  private static void assertSameAsReflective(String json, Type type) {
+    Object reflective = REFLECTIVE.fromJson(json, type);
+    Object generated = GENERATED.fromJson(json, type);
+    if (reflective instanceof BatchResponse) {
+      assertFalse(((BatchResponse<?>) reflective).data.isEmpty());
+    }
+    // read: the objects are compared by their reflective encoding
+    assertEquals(REFLECTIVE.toJsonTree(reflective, type), REFLECTIVE.toJsonTree(generated, type));
+    // write
+    assertEquals(REFLECTIVE.toJsonTree(reflective, type), GENERATED.toJsonTree(reflective, type));
+  }
+}
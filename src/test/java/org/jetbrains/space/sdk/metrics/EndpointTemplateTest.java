@@ -0,0 +1,46 @@
+package org.jetbrains.space.sdk.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EndpointTemplateTest {
+
+    @Test
+    void typedIdentifiers() {
+        assertEquals("/api/http/team-directory/profiles/id:{id}/working-days",
+                EndpointTemplate.of("/api/http/team-directory/profiles/id:2o8CHv1pZxkh/working-days"));
+        assertEquals("/api/http/team-directory/profiles/email:{email}",
+                EndpointTemplate.of("/api/http/team-directory/profiles/email:john.doe@example.com"));
+        assertEquals("/api/http/team-directory/profiles/username:{username}",
+                EndpointTemplate.of("/api/http/team-directory/profiles/username:john-doe"));
+    }
+
+    @Test
+    void knownEndpoints() {
+        assertEquals("/api/http/team-directory/profiles/working-days",
+                EndpointTemplate.of("/api/http/team-directory/profiles/working-days"));
+        assertEquals("/api/http/public-holidays/holidays/profile-holidays",
+                EndpointTemplate.of("/api/http/public-holidays/holidays/profile-holidays"));
+        assertEquals("/api/http/hrm/business-entities/relations",
+                EndpointTemplate.of("/api/http/hrm/business-entities/relations"));
+    }
+
+    @Test
+    void rawIdentifiersOfKnownEndpoints() {
+        assertEquals("/api/http/hrm/business-entities/relations/{id}",
+                EndpointTemplate.of("/api/http/hrm/business-entities/relations/2o8CHv1pZxkh"));
+        // would be a resource name elsewhere
+        assertEquals("/api/http/hrm/business-entities/relations/{id}",
+                EndpointTemplate.of("/api/http/hrm/business-entities/relations/john-doe"));
+    }
+
+    @Test
+    void otherEndpoints() {
+        assertEquals("/api/http/projects/key:{key}/planning/issues",
+                EndpointTemplate.of("/api/http/projects/key:ABC/planning/issues"));
+        assertEquals("/api/http/projects/{id}/repositories",
+                EndpointTemplate.of("/api/http/projects/2o8CHv1pZxkh/repositories"));
+        assertEquals("api/{id}/team-directory", EndpointTemplate.of("api/3/team-directory"));
+    }
+}